@@ -0,0 +1,24 @@
+package com.kepler.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 压测入口, 默认开启GC Profiler(分配速率)并输出JSON结果(kepler-benchmark.json)
+ * 
+ * 用法: java -jar target/benchmarks.jar [JMH参数], 例如: java -jar target/benchmarks.jar Serial -f 1
+ *
+ * @author KimShen
+ *
+ */
+public class Benchmarks {
+
+	private static final String RESULT = System.getProperty("kepler.benchmark.result", "kepler-benchmark.json");
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).resultFormat(ResultFormatType.JSON).result(Benchmarks.RESULT).build()).run();
+	}
+}
@@ -0,0 +1,17 @@
+package com.kepler.benchmark;
+
+import com.kepler.annotation.Service;
+
+/**
+ * 回环测试服务
+ *
+ * @author KimShen
+ *
+ */
+@Service(version = "0.0.1")
+public interface Echo {
+
+	public String echo(String message);
+
+	public Payload payload(Payload payload);
+}
@@ -0,0 +1,18 @@
+package com.kepler.benchmark;
+
+/**
+ * @author KimShen
+ *
+ */
+public class EchoImpl implements Echo {
+
+	@Override
+	public String echo(String message) {
+		return message;
+	}
+
+	@Override
+	public Payload payload(Payload payload) {
+		return payload;
+	}
+}
@@ -0,0 +1,73 @@
+package com.kepler.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kepler.header.Headers;
+import com.kepler.header.HeadersProcessor;
+import com.kepler.header.impl.LazyHeaders;
+import com.kepler.header.impl.TraceContext;
+import com.kepler.service.Service;
+
+/**
+ * Header处理链与Trace上下文
+ *
+ * @author KimShen
+ *
+ */
+@Fork(1)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+public class HeadersBenchmark {
+
+	private final Service service = new Service(Echo.class.getName(), "0.0.1");
+
+	private HeadersProcessor processor;
+
+	@Setup(Level.Trial)
+	public void setup(KeplerState kepler) {
+		this.processor = kepler.get("kepler.header.processor", HeadersProcessor.class);
+	}
+
+	/**
+	 * 客户端每次调用的Header处理(含Trace生成)
+	 */
+	@Benchmark
+	public Headers process() {
+		try {
+			return this.processor.process(this.service, new LazyHeaders());
+		} finally {
+			TraceContext.release();
+		}
+	}
+
+	@Benchmark
+	public String trace() {
+		try {
+			return TraceContext.getTraceOnCreate();
+		} finally {
+			TraceContext.release();
+		}
+	}
+
+	@Benchmark
+	public String headers() {
+		Headers headers = new LazyHeaders();
+		headers.put("trace", "kepler").put("span", "kepler").putIfAbsent("trace", "ignore");
+		return headers.get("trace");
+	}
+}
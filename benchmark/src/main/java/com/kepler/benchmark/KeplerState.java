@@ -0,0 +1,36 @@
+package com.kepler.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * 完整Kepler容器(每个Fork独立), 使用LocalRegistry替代ZooKeeper
+ *
+ * @author KimShen
+ *
+ */
+@State(Scope.Benchmark)
+public class KeplerState {
+
+	private static final String CONFIG = "classpath:kepler-benchmark.xml";
+
+	private ClassPathXmlApplicationContext context;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.context = new ClassPathXmlApplicationContext(KeplerState.CONFIG);
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		this.context.close();
+	}
+
+	public <T> T get(String name, Class<T> clazz) {
+		return this.context.getBean(name, clazz);
+	}
+}
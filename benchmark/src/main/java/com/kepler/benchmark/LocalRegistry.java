@@ -0,0 +1,90 @@
+package com.kepler.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import com.kepler.host.impl.ServerHost;
+import com.kepler.service.Exported;
+import com.kepler.service.Imported;
+import com.kepler.service.ImportedListener;
+import com.kepler.service.Service;
+import com.kepler.zookeeper.ZkSerial;
+
+/**
+ * 进程内注册中心(替代ZooKeeper), 容器启动后将本地发布的服务直接注册给本地导入方
+ *
+ * @author KimShen
+ *
+ */
+public class LocalRegistry implements Imported, Exported, ApplicationListener<ContextRefreshedEvent> {
+
+	private static final Log LOGGER = LogFactory.getLog(LocalRegistry.class);
+
+	private final Set<Service> exported = new CopyOnWriteArraySet<Service>();
+
+	private final Set<Service> imported = new CopyOnWriteArraySet<Service>();
+
+	private final ImportedListener listener;
+
+	private final ServerHost local;
+
+	/**
+	 * 容器是否已启动(服务端已监听)
+	 */
+	private volatile boolean refreshed;
+
+	public LocalRegistry(ImportedListener listener, ServerHost local) {
+		super();
+		this.listener = listener;
+		this.local = local;
+	}
+
+	@Override
+	public void export(Service service, Object instance) throws Exception {
+		this.exported.add(service);
+	}
+
+	@Override
+	public void logout(Service service) throws Exception {
+		this.exported.remove(service);
+	}
+
+	@Override
+	public void subscribe(Service service) throws Exception {
+		// FactoryBean延迟订阅, 容器启动后的订阅直接注册
+		if (this.imported.add(service) && this.refreshed) {
+			this.register(service);
+		}
+	}
+
+	@Override
+	public void unsubscribe(Service service) throws Exception {
+		this.imported.remove(service);
+	}
+
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		this.refreshed = true;
+		for (Service service : this.imported) {
+			this.register(service);
+		}
+	}
+
+	private void register(Service service) {
+		if (!this.exported.contains(service)) {
+			return;
+		}
+		try {
+			// 服务端已启动(DefaultServer.init), 直接连接本地主机
+			this.listener.add(new ZkSerial(this.local, service));
+			LocalRegistry.LOGGER.info("Loopback registered: " + service);
+		} catch (Exception e) {
+			LocalRegistry.LOGGER.error(e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.kepler.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 本地回环RPC(Client -> Netty -> Server -> Netty -> Client)
+ *
+ * @author KimShen
+ *
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+public class LoopbackBenchmark {
+
+	private static final Log LOGGER = LogFactory.getLog(LoopbackBenchmark.class);
+
+	/**
+	 * 等待连接建立的最大尝试次数(每次间隔100ms)
+	 */
+	private static final int RETRY = 100;
+
+	private final Payload payload = Payload.sample();
+
+	private Echo echo;
+
+	@Setup(Level.Trial)
+	public void setup(KeplerState kepler) throws Exception {
+		this.echo = kepler.get("kepler.benchmark.echo", Echo.class);
+		// 连接为异步建立, 首次调用成功后开始压测
+		for (int index = 0;; index++) {
+			try {
+				this.echo.echo("warmup");
+				return;
+			} catch (Exception e) {
+				if (index >= LoopbackBenchmark.RETRY) {
+					throw e;
+				}
+				LoopbackBenchmark.LOGGER.debug(e.getMessage(), e);
+				Thread.sleep(100);
+			}
+		}
+	}
+
+	@Benchmark
+	public String echo() {
+		return this.echo.echo("kepler");
+	}
+
+	@Benchmark
+	public Payload payload() {
+		return this.echo.payload(this.payload);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public String echo4concurrent() {
+		return this.echo.echo("kepler");
+	}
+}
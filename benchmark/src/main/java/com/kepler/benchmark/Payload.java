@@ -0,0 +1,73 @@
+package com.kepler.benchmark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 典型业务参数(基础类型, 字符串, 集合)
+ *
+ * @author KimShen
+ *
+ */
+public class Payload implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private long id;
+
+	private String name;
+
+	private List<String> tags;
+
+	private Map<String, Integer> values;
+
+	public static Payload sample() {
+		Payload payload = new Payload();
+		payload.setId(20160101L);
+		payload.setName("kepler-benchmark-payload");
+		List<String> tags = new ArrayList<String>();
+		Map<String, Integer> values = new HashMap<String, Integer>();
+		for (int index = 0; index < 8; index++) {
+			tags.add("tag-" + index);
+			values.put("value-" + index, index);
+		}
+		payload.setTags(tags);
+		payload.setValues(values);
+		return payload;
+	}
+
+	public long getId() {
+		return this.id;
+	}
+
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public List<String> getTags() {
+		return this.tags;
+	}
+
+	public void setTags(List<String> tags) {
+		this.tags = tags;
+	}
+
+	public Map<String, Integer> getValues() {
+		return this.values;
+	}
+
+	public void setValues(Map<String, Integer> values) {
+		this.values = values;
+	}
+}
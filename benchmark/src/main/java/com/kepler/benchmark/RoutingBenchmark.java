@@ -0,0 +1,80 @@
+package com.kepler.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kepler.config.Profile;
+import com.kepler.header.impl.LazyHeaders;
+import com.kepler.host.Host;
+import com.kepler.host.impl.DefaultHost;
+import com.kepler.protocol.Request;
+import com.kepler.protocol.impl.DefaultRequest;
+import com.kepler.router.routing.LoadBalance;
+import com.kepler.router.routing.RandomLoadBalance;
+import com.kepler.router.routing.RoundRobinLoadBalance;
+import com.kepler.service.Service;
+
+/**
+ * 负载均衡路由, 覆盖不同主机规模
+ *
+ * @author KimShen
+ *
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+public class RoutingBenchmark {
+
+	@Param({ "1", "4", "16", "64", "256" })
+	private int hosts;
+
+	@Param({ "random", "roundrobin" })
+	private String balance;
+
+	private LoadBalance routing;
+
+	private Request request;
+
+	private List<Host> candidates;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Profile profile = new Profile();
+		this.routing = "random".equals(this.balance) ? new RandomLoadBalance(profile) : new RoundRobinLoadBalance(profile);
+		this.request = new DefaultRequest(new byte[] { 0 }, new LazyHeaders(), new Service(Echo.class.getName(), "0.0.1"), "echo", false, new Object[] { "kepler" }, new Class<?>[] { String.class }, (byte) 0);
+		this.candidates = new ArrayList<Host>(this.hosts);
+		for (int index = 0; index < this.hosts; index++) {
+			// 优先级交错, 覆盖权重表
+			this.candidates.add(new DefaultHost("", "benchmark", "", "host-" + index, "", String.valueOf(index), "10.0." + (index / 256) + "." + (index % 256), 9000, 0, index % 3));
+		}
+	}
+
+	@Benchmark
+	public Host route() {
+		return this.routing.route(this.request, this.candidates);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Host route4concurrent() {
+		return this.routing.route(this.request, this.candidates);
+	}
+}
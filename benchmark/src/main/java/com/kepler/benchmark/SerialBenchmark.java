@@ -0,0 +1,110 @@
+package com.kepler.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kepler.connection.codec.Decoder;
+import com.kepler.connection.codec.Encoder;
+import com.kepler.header.impl.LazyHeaders;
+import com.kepler.protocol.Request;
+import com.kepler.protocol.RequestFactories;
+import com.kepler.protocol.Response;
+import com.kepler.protocol.ResponseFactories;
+import com.kepler.serial.Serials;
+import com.kepler.service.Service;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * 编解码(Request/Response), 覆盖全部序列化策略
+ *
+ * @author KimShen
+ *
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+public class SerialBenchmark {
+
+	private static final byte[] ACK = new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 };
+
+	private static final String METHOD = "payload";
+
+	private final Service service = new Service(Echo.class.getName(), "0.0.1");
+
+	@Param({ "default", "hessian2", "jackson", "generic" })
+	private String serial;
+
+	private Request request;
+
+	private Response response;
+
+	private Encoder encoder4request;
+
+	private Encoder encoder4response;
+
+	private Decoder decoder4request;
+
+	private Decoder decoder4response;
+
+	@Setup(Level.Trial)
+	public void setup(KeplerState kepler) throws Exception {
+		this.encoder4request = kepler.get("kepler.codec.encoder.request", Encoder.class);
+		this.encoder4response = kepler.get("kepler.codec.encoder.response", Encoder.class);
+		this.decoder4request = kepler.get("kepler.codec.decoder.request", Decoder.class);
+		this.decoder4response = kepler.get("kepler.codec.decoder.response", Decoder.class);
+		byte serial = kepler.get("kepler.serials", Serials.class).output(this.serial);
+		Payload payload = Payload.sample();
+		this.request = kepler.get("kepler.protocol.request", RequestFactories.class).factory(serial).request(new LazyHeaders(), this.service, SerialBenchmark.METHOD, false, new Object[] { payload }, new Class<?>[] { Payload.class }, SerialBenchmark.ACK, serial);
+		this.response = kepler.get("kepler.protocol.response", ResponseFactories.class).factory(serial).response(SerialBenchmark.ACK, payload, serial);
+	}
+
+	@Benchmark
+	public int encode4request() throws Exception {
+		ByteBuf buffer = this.encoder4request.encode(this.service, SerialBenchmark.METHOD, this.request);
+		try {
+			return buffer.readableBytes();
+		} finally {
+			ReferenceCountUtil.release(buffer);
+		}
+	}
+
+	@Benchmark
+	public int encode4response() throws Exception {
+		ByteBuf buffer = this.encoder4response.encode(this.service, SerialBenchmark.METHOD, this.response);
+		try {
+			return buffer.readableBytes();
+		} finally {
+			ReferenceCountUtil.release(buffer);
+		}
+	}
+
+	/**
+	 * 编码+解码, Decoder负责释放ByteBuf
+	 */
+	@Benchmark
+	public Object roundtrip4request() throws Exception {
+		return this.decoder4request.decode(this.encoder4request.encode(this.service, SerialBenchmark.METHOD, this.request));
+	}
+
+	@Benchmark
+	public Object roundtrip4response() throws Exception {
+		return this.decoder4response.decode(this.encoder4response.encode(this.service, SerialBenchmark.METHOD, this.response));
+	}
+}
@@ -0,0 +1,16 @@
+package com.kepler;
+
+/**
+ * 服务端线程池饱和, 请求被拒绝(未执行)
+ * 
+ * @author KimShen
+ *
+ */
+public class KeplerBusyException extends KeplerRemoteException {
+
+	private static final long serialVersionUID = 1L;
+
+	public KeplerBusyException(String e) {
+		super(e);
+	}
+}
@@ -0,0 +1,16 @@
+package com.kepler;
+
+/**
+ * 熔断器开启(或半开探测已满), 请求未发送
+ * 
+ * @author KimShen
+ *
+ */
+public class KeplerCircuitException extends KeplerLocalException {
+
+	private static final long serialVersionUID = 1L;
+
+	public KeplerCircuitException(String e) {
+		super(e);
+	}
+}
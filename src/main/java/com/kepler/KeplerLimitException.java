@@ -0,0 +1,16 @@
+package com.kepler;
+
+/**
+ * 客户端并发超过限制, 请求未发送(Failed Fast)
+ * 
+ * @author KimShen
+ *
+ */
+public class KeplerLimitException extends KeplerLocalException {
+
+	private static final long serialVersionUID = 1L;
+
+	public KeplerLimitException(String e) {
+		super(e);
+	}
+}
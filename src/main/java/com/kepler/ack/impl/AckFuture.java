@@ -2,22 +2,24 @@ package com.kepler.ack.impl;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.kepler.KeplerException;
 import com.kepler.KeplerLocalException;
 import com.kepler.KeplerRemoteException;
 import com.kepler.KeplerTimeoutException;
 import com.kepler.ack.Ack;
-import com.kepler.ack.AckTimeOut;
 import com.kepler.ack.Acks;
 import com.kepler.ack.Status;
 import com.kepler.admin.transfer.Collector;
-import com.kepler.admin.transfer.Transfer;
+import com.kepler.breaker.Breaker;
+import com.kepler.breaker.Breakers;
 import com.kepler.channel.ChannelInvoker;
 import com.kepler.config.Profile;
 import com.kepler.config.PropertiesUtils;
@@ -25,21 +27,26 @@ import com.kepler.generic.reflect.analyse.Fields;
 import com.kepler.generic.reflect.analyse.FieldsAnalyser;
 import com.kepler.header.impl.TraceContext;
 import com.kepler.host.Host;
+import com.kepler.limit.AdaptiveLimit;
+import com.kepler.limit.Limits;
 import com.kepler.mock.MockerResponse;
 import com.kepler.protocol.Request;
 import com.kepler.protocol.Response;
+import com.kepler.router.routing.Latencies;
 import com.kepler.service.Quiet;
+import com.kepler.thread.FutureListener;
+import com.kepler.thread.FutureListeners;
+import com.kepler.thread.FuturePromise;
+
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
 
 /**
- * Warning: 监视器使用this避免创建无用对象
+ * 超时由共享时间轮(AckTimer)统一触发, 完成(响应, 超时, 取消)仅处理一次
  * 
  * @author kim 2015年7月23日
  */
-/**
- * @author KimShen
- *
- */
-public class AckFuture implements Future<Object>, Runnable, Ack {
+public class AckFuture implements FuturePromise, TimerTask, Ack {
 
 	/**
 	 * Response校对
@@ -60,6 +67,8 @@ public class AckFuture implements Future<Object>, Runnable, Ack {
 	 */
 	private static final int TIMEOUT_DEF = PropertiesUtils.get(AckFuture.TIMEOUT_KEY, 60000);
 
+	private static final AtomicReferenceFieldUpdater<AckFuture, Status> STATUS = AtomicReferenceFieldUpdater.newUpdater(AckFuture.class, Status.class, "stauts");
+
 	private static final Log LOGGER = LogFactory.getLog(AckFuture.class);
 
 	/**
@@ -67,6 +76,21 @@ public class AckFuture implements Future<Object>, Runnable, Ack {
 	 */
 	private final long start = System.currentTimeMillis();
 
+	/**
+	 * 纳秒起始时间(用于延迟统计)
+	 */
+	private final long nano = System.nanoTime();
+
+	/**
+	 * 等待完成
+	 */
+	private final CountDownLatch latch = new CountDownLatch(1);
+
+	/**
+	 * 完成监听
+	 */
+	private final FutureListeners listeners = new FutureListeners();
+
 	/**
 	 * ACK持有线程
 	 */
@@ -92,15 +116,29 @@ public class AckFuture implements Future<Object>, Runnable, Ack {
 	 */
 	private final Collector collector;
 
+	private final Latencies latencies;
+
+	private final Limits limits;
+
 	/**
-	 * 超时处理
+	 * 主机级并发许可(未开启则为Null)
 	 */
-	private final AckTimeOut timeout;
+	private final AdaptiveLimit limit;
 
 	/**
-	 * EventLoop
+	 * 熔断器(未开启则为Null)
 	 */
-	private final Executor executor;
+	private final Breaker breaker;
+
+	/**
+	 * 是否为半开探测请求
+	 */
+	private final boolean probe;
+
+	/**
+	 * 超时时间轮
+	 */
+	private final AckTimer timer;
 
 	/**
 	 * 原始请求
@@ -147,18 +185,36 @@ public class AckFuture implements Future<Object>, Runnable, Ack {
 	 */
 	volatile private Acks acks;
 
-	public AckFuture(FieldsAnalyser analyser, ChannelInvoker invoker, AckTimeOut timeout, Collector collector, Executor executor, Method method, Request request, Profile profile, Quiet quiet) {
+	/**
+	 * 时间轮任务(无超时时为Null)
+	 */
+	volatile private Timeout expiration;
+
+	public AckFuture(FieldsAnalyser analyser, ChannelInvoker invoker, Breakers breakers, AckTimer timer, Collector collector, Latencies latencies, Limits limits, Method method, Request request, Profile profile, Quiet quiet) {
 		super();
+		this.timer = timer;
 		this.quiet = quiet;
 		this.method = method;
 		this.invoker = invoker;
-		this.timeout = timeout;
 		this.request = request;
-		this.executor = executor;
 		this.analyser = analyser;
 		this.collector = collector;
+		this.latencies = latencies;
+		this.limits = limits;
 		// 计算Timeout最终时间
 		this.deadline = this.deadline(profile, request);
+		// 熔断检查, 开启则Failed Fast
+		this.breaker = breakers.get(request, invoker.remote());
+		this.probe = this.breaker != null ? this.breaker.acquire() : false;
+		try {
+			// 主机级并发限制, 超过则Failed Fast
+			this.limit = limits.acquire(request.service(), invoker.remote());
+		} catch (RuntimeException exception) {
+			if (this.breaker != null) {
+				this.breaker.cancel(this.probe);
+			}
+			throw exception;
+		}
 	}
 
 	/**
@@ -168,24 +224,30 @@ public class AckFuture implements Future<Object>, Runnable, Ack {
 	 * @return
 	 */
 	private long deadline(Profile profile, Request request) {
-		long deadline_config = PropertiesUtils.profile(profile.profile(request.service()), AckFuture.TIMEOUT_KEY, AckFuture.TIMEOUT_DEF);
+		long deadline_config = profile.get(request.service(), AckFuture.TIMEOUT_KEY, AckFuture.TIMEOUT_DEF);
 		// 如果超时小于等于0则使用表示不指定超时时间
 		long deadline_actual = deadline_config > 0 ? deadline_config : Long.MAX_VALUE;
 		// 如果开启了Timeout传递则放入Header供服务端检查
-		if (PropertiesUtils.profile(profile.profile(request.service()), AckFuture.TIMEOUT_PROPAGATE_KEY, AckFuture.TIMEOUT_PROPAGATE_DEF)) {
+		if (profile.get(request.service(), AckFuture.TIMEOUT_PROPAGATE_KEY, AckFuture.TIMEOUT_PROPAGATE_DEF)) {
 			request.put(AckFuture.TIMEOUT_PROPAGATE_KEY, System.currentTimeMillis() + deadline_actual);
 		}
 		return deadline_actual;
 	}
 
 	/**
-	 * 绑定
+	 * 绑定并开始计时
 	 * 
 	 * @param acks
 	 * @return
 	 */
 	public AckFuture acks(Acks acks) {
 		this.acks = acks;
+		// 未完成请求计数
+		this.latencies.begin(this.invoker.remote());
+		// 指定超时则加入时间轮(剩余时间)
+		if (this.deadline != Long.MAX_VALUE) {
+			this.expiration = this.timer.timeout(this, Math.max(this.deadline - (System.currentTimeMillis() - this.start), 0));
+		}
 		return this;
 	}
 
@@ -243,8 +305,6 @@ public class AckFuture implements Future<Object>, Runnable, Ack {
 	 */
 	private AckFuture checkException() throws KeplerRemoteException {
 		if (!this.response.valid()) {
-			// 如果静默则保持Done状态
-			this.stauts = this.quiet.quiet(this.request, this.response.throwable().getClass()) ? Status.DONE : Status.EXCEPTION;
 			// 非KeplerRemoteException需包装
 			throw KeplerRemoteException.class.isAssignableFrom(this.response.throwable().getClass()) ? KeplerRemoteException.class.cast(this.response.throwable()) : new KeplerRemoteException(this.response.throwable());
 		}
@@ -273,46 +333,46 @@ public class AckFuture implements Future<Object>, Runnable, Ack {
 	 * @param
 	 */
 	public void response(Response response) {
-		synchronized (this) {
-			this.receive = System.currentTimeMillis();
-			this.response = response;
-			// 如果状态为等待则进行唤醒
-			if (this.stauts == Status.WAITING) {
-				this.stauts = Status.DONE;
-				this.notifyAll();
-			}
+		this.receive = System.currentTimeMillis();
+		this.response = response;
+		// 如果静默则保持Done状态
+		Status status = response.valid() || this.quiet.quiet(this.request, response.throwable().getClass()) ? Status.DONE : Status.EXCEPTION;
+		// 仅等待状态允许切换(超时或取消后的响应将忽略)
+		if (AckFuture.STATUS.compareAndSet(this, Status.WAITING, status)) {
+			this.completed();
 		}
 	}
 
 	public boolean cancel(boolean interrupt) {
-		// Guard case1, 已完成则立即返回
-		if (this.isDone()) {
-			return false;
-		}
-		// Guard case2, 已取消则立即返回
-		if (this.isCancelled()) {
-			return true;
-		}
-		synchronized (this) {
-			// Guard case1, 同步校验
-			if (this.isDone()) {
-				return false;
-			}
-			// Guard case2, 同步校验
-			if (this.isCancelled()) {
-				return true;
-			}
-			// 切换状态
-			this.stauts = Status.CANCEL;
+		if (AckFuture.STATUS.compareAndSet(this, Status.WAITING, Status.CANCEL)) {
 			// 标记是否中断
 			this.interrupt = interrupt;
+			this.completed();
 			if (this.interrupt) {
 				this.thread.interrupt();
-			} else {
-				this.notifyAll();
 			}
 			return true;
 		}
+		// 已完成返回False, 已取消返回True
+		return this.isCancelled();
+	}
+
+	/**
+	 * 时间轮回调
+	 */
+	@Override
+	public void run(Timeout timeout) throws Exception {
+		this.expire();
+	}
+
+	/**
+	 * 标记超时, 仅首次有效
+	 */
+	private void expire() {
+		if (AckFuture.STATUS.compareAndSet(this, Status.WAITING, Status.TIMEOUT)) {
+			this.receive = System.currentTimeMillis();
+			this.completed();
+		}
 	}
 
 	@Override
@@ -334,77 +394,135 @@ public class AckFuture implements Future<Object>, Runnable, Ack {
 
 	@Override
 	public Object get(long timeout, TimeUnit unit) throws InterruptedException {
+		// 取Timeout最小值
+		this.waiting(Math.min(unit.toMillis(timeout), this.deadline));
+		Object response_source = this.response();
+		// Guard case1, 无需校对
+		if (!AckFuture.CORRECT_ACTIVED) {
+			return response_source;
+		}
+		// 获取实际响应
+		Object response_actual = MockerResponse.class.isAssignableFrom(response_source.getClass()) ? MockerResponse.class.cast(response_source).response() : response_source;
+		// Guard case2, 返回为空
+		if (response_actual == null) {
+			return response_actual;
+		}
 		try {
-			// 取Timeout最小值
-			this.waiting(Math.min(timeout, this.deadline));
-			Object response_source = this.response();
-			// Guard case1, 无需校对
-			if (!AckFuture.CORRECT_ACTIVED) {
-				return response_source;
-			}
-			// 获取实际响应
-			Object response_actual = MockerResponse.class.isAssignableFrom(response_source.getClass()) ? MockerResponse.class.cast(response_source).response() : response_source;
-			// Guard case2, 返回为空
-			if (response_actual == null) {
+			Fields[] fields = this.analyser.get(this.method);
+			// Guard case4, 无法转换
+			if (fields == null || fields.length == 0) {
+				AckFuture.LOGGER.warn("[generic-failed][service=" + this.request.service() + "][method=" + this.method + "]");
 				return response_actual;
 			}
-			try {
-				Fields[] fields = this.analyser.get(this.method);
-				// Guard case4, 无法转换
-				if (fields == null || fields.length == 0) {
-					AckFuture.LOGGER.warn("[generic-failed][service=" + this.request.service() + "][method=" + this.method + "]");
-					return response_actual;
-				}
-				return fields[0].actual(response_actual);
-			} catch (Throwable e) {
-				// 转换, 如果失败则返回原始类型
-				AckFuture.LOGGER.error(e.getMessage(), e);
-				return response_source;
-			}
-		} finally {
-			this.completed();
+			return fields[0].actual(response_actual);
+		} catch (Throwable e) {
+			// 转换, 如果失败则返回原始类型
+			AckFuture.LOGGER.error(e.getMessage(), e);
+			return response_source;
 		}
 	}
 
 	/**
-	 * 后续工作
+	 * 后续工作(仅执行一次)
 	 */
 	private void completed() {
-		// ACK移除
-		this.executor.execute(this);
+		// 取消时间轮任务
+		if (this.expiration != null) {
+			this.expiration.cancel();
+		}
+		// ACK移除(任意线程)
+		if (this.acks != null) {
+			this.acks.remove(this.request.ack());
+			long elapse = System.nanoTime() - this.nano;
+			// 取消的耗时不代表主机延迟, 不参与采样
+			if (Status.CANCEL.equals(this.stauts)) {
+				this.latencies.cancel(this.invoker.remote());
+				this.limits.cancel(this.limit);
+			} else {
+				this.latencies.end(this.invoker.remote(), elapse);
+				this.limits.end(this.request.service(), this.limit, elapse, Status.TIMEOUT.equals(this.stauts));
+			}
+			this.breaker(elapse);
+		}
 		// 收集信息
 		this.collector.collect(this);
-		// 超时处理
-		if (this.stauts.equals(Status.TIMEOUT)) {
-			// 首次访问即超时Transfer = null
-			Transfer transfer = this.collector.peek(this);
-			this.timeout.timeout(this.invoker, this, transfer != null ? transfer.timeout() : 1);
-		}
+		// 唤醒等待线程
+		this.latch.countDown();
+		// 通知监听
+		this.listeners.complete(this);
 	}
 
 	/**
-	 * 已耗时大于指定超时则标记状态为超时
+	 * 熔断统计
 	 * 
-	 * @param timeout
-	 * @return
+	 * @param elapse
 	 */
-	private void timeout(long timeout) {
-		if ((System.currentTimeMillis() - this.start) > timeout) {
-			this.stauts = Status.TIMEOUT;
+	private void breaker(long elapse) {
+		if (this.breaker == null) {
+			return;
+		}
+		switch (this.stauts) {
+		case TIMEOUT:
+			this.breaker.timeout(this.probe, elapse);
+			return;
+		case CANCEL:
+			this.breaker.cancel(this.probe);
+			return;
+		case EXCEPTION:
+			// 仅框架异常视为失败, 业务异常表示主机可用
+			if (KeplerException.class.isAssignableFrom(this.response.throwable().getClass())) {
+				this.breaker.failure(this.probe, elapse);
+			} else {
+				this.breaker.success(this.probe, elapse);
+			}
+			return;
+		default:
+			this.breaker.success(this.probe, elapse);
+			return;
 		}
 	}
 
+	/**
+	 * 未发送即放弃(ACK未注册), 释放主机级许可及探测
+	 */
+	public void abandon() {
+		if (this.acks != null) {
+			return;
+		}
+		if (this.limit != null) {
+			this.limit.release();
+		}
+		if (this.breaker != null) {
+			this.breaker.cancel(this.probe);
+		}
+	}
+
+	@Override
+	public FuturePromise listener(FutureListener listener, Executor executor) {
+		this.listeners.add(this, listener, executor);
+		return this;
+	}
+
+	@Override
+	public boolean listenable() {
+		return true;
+	}
+
+	/**
+	 * 等待完成, 如果等待超时则标记为超时
+	 * 
+	 * @param timeout
+	 * @throws InterruptedException
+	 */
 	private void waiting(long timeout) throws InterruptedException {
-		synchronized (this) {
-			// 堵塞条件: 未完成且未取消
-			while (!this.isDone() && !this.isCancelled()) {
-				try {
-					this.wait(timeout);
-				} finally {
-					// 计算是否超时
-					this.timeout(timeout);
-				}
+		try {
+			if (!this.latch.await(timeout, TimeUnit.MILLISECONDS)) {
+				this.expire();
 			}
+		} catch (InterruptedException e) {
+			// 由Cancel触发的中断
+			this.checkInterrupt();
+			throw e;
 		}
 	}
 
@@ -425,10 +543,4 @@ public class AckFuture implements Future<Object>, Runnable, Ack {
 	public long elapse() {
 		return this.receive - this.start;
 	}
-
-	@Override
-	public void run() {
-		// 移除ACK
-		this.acks.remove(this.request.ack());
-	}
 }
\ No newline at end of file
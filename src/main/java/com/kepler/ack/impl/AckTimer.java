@@ -0,0 +1,53 @@
+package com.kepler.ack.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.kepler.config.PropertiesUtils;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * 共享ACK超时时间轮
+ * 
+ * @author KimShen
+ *
+ */
+public class AckTimer {
+
+	/**
+	 * 超时精度(毫秒)
+	 */
+	private static final int TICK = PropertiesUtils.get(AckTimer.class.getName().toLowerCase() + ".tick", 10);
+
+	/**
+	 * 时间轮槽数量
+	 */
+	private static final int WHEEL = PropertiesUtils.get(AckTimer.class.getName().toLowerCase() + ".wheel", 512);
+
+	private static final Log LOGGER = LogFactory.getLog(AckTimer.class);
+
+	private final HashedWheelTimer timer = new HashedWheelTimer(new DefaultThreadFactory("kepler-ack-timer", true), AckTimer.TICK, TimeUnit.MILLISECONDS, AckTimer.WHEEL);
+
+	/**
+	 * For Spring
+	 */
+	public void destroy() {
+		this.timer.stop();
+		AckTimer.LOGGER.warn("AckTimer shutdown ... ");
+	}
+
+	/**
+	 * @param task
+	 * @param delay 毫秒
+	 * @return
+	 */
+	public Timeout timeout(TimerTask task, long delay) {
+		return this.timer.newTimeout(task, delay, TimeUnit.MILLISECONDS);
+	}
+}
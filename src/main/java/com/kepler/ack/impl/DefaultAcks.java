@@ -0,0 +1,206 @@
+package com.kepler.ack.impl;
+
+import java.util.Arrays;
+
+import com.kepler.ack.Acks;
+import com.kepler.config.PropertiesUtils;
+
+/**
+ * 线程安全ACK集合, 以ACK计算的long为Key分段存储(开放寻址), Put/Get/Remove均不产生对象
+ * 
+ * @author KimShen
+ *
+ */
+public class DefaultAcks implements Acks {
+
+	/**
+	 * 分段数量(2的幂)
+	 */
+	private static final int SEGMENT = Integer.highestOneBit(Math.max(PropertiesUtils.get(DefaultAcks.class.getName().toLowerCase() + ".segment", 16), 1));
+
+	/**
+	 * 每个分段初始容量(2的幂)
+	 */
+	private static final int CAPACITY = Integer.highestOneBit(Math.max(PropertiesUtils.get(DefaultAcks.class.getName().toLowerCase() + ".capacity", 64), 4));
+
+	/**
+	 * 已删除标记
+	 */
+	private static final Object REMOVED = new Object();
+
+	private final Segment[] segments = new Segment[DefaultAcks.SEGMENT];
+
+	public DefaultAcks() {
+		super();
+		for (int index = 0; index < this.segments.length; index++) {
+			this.segments[index] = new Segment();
+		}
+	}
+
+	/**
+	 * ACK转换为long. 不超过8字节时为精确值, 超出部分循环异或
+	 * 
+	 * @param ack
+	 * @return
+	 */
+	private static long key(byte[] ack) {
+		long key = 0;
+		for (int index = 0; index < ack.length; index++) {
+			key = Long.rotateLeft(key, 8) ^ (ack[index] & 0xFF);
+		}
+		return key;
+	}
+
+	/**
+	 * 扰动
+	 * 
+	 * @param key
+	 * @return
+	 */
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	private Segment segment(int hash) {
+		return this.segments[(hash >>> 16) & (this.segments.length - 1)];
+	}
+
+	public AckFuture put(AckFuture future) {
+		byte[] ack = future.request().ack();
+		long key = DefaultAcks.key(ack);
+		int hash = DefaultAcks.hash(key);
+		this.segment(hash).put(key, hash, ack, future);
+		return future.acks(this);
+	}
+
+	public AckFuture get(byte[] ack) {
+		long key = DefaultAcks.key(ack);
+		int hash = DefaultAcks.hash(key);
+		return this.segment(hash).get(key, hash, ack, false);
+	}
+
+	public AckFuture remove(byte[] ack) {
+		long key = DefaultAcks.key(ack);
+		int hash = DefaultAcks.hash(key);
+		return this.segment(hash).get(key, hash, ack, true);
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment each : this.segments) {
+			size += each.size;
+		}
+		return size;
+	}
+
+	public String toString() {
+		return "[acks=" + this.size() + "]";
+	}
+
+	/**
+	 * 开放寻址(线性探测)分段
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class Segment {
+
+		private long[] keys = new long[DefaultAcks.CAPACITY];
+
+		private Object[] values = new Object[DefaultAcks.CAPACITY];
+
+		/**
+		 * 有效数量
+		 */
+		volatile private int size;
+
+		/**
+		 * 已占用数量(有效 + 已删除标记)
+		 */
+		private int used;
+
+		/**
+		 * Key相同时校验原始ACK(避免超过8字节时的碰撞)
+		 * 
+		 * @param value
+		 * @param ack
+		 * @return
+		 */
+		private boolean same(Object value, byte[] ack) {
+			return Arrays.equals(AckFuture.class.cast(value).request().ack(), ack);
+		}
+
+		public void put(long key, int hash, byte[] ack, AckFuture future) {
+			synchronized (this) {
+				int mask = this.values.length - 1;
+				int index = hash & mask;
+				// 首个可复用的已删除位置
+				int free = -1;
+				for (Object value = null; (value = this.values[index]) != null; index = (index + 1) & mask) {
+					if (value == DefaultAcks.REMOVED) {
+						free = free < 0 ? index : free;
+					} else if (this.keys[index] == key && this.same(value, ack)) {
+						// 已存在则覆盖
+						this.values[index] = future;
+						return;
+					}
+				}
+				if (free < 0) {
+					free = index;
+					this.used++;
+				}
+				this.keys[free] = key;
+				this.values[free] = future;
+				this.size++;
+				// 负载因子0.75
+				if (this.used >= (this.values.length >> 2) * 3) {
+					this.rehash();
+				}
+			}
+		}
+
+		public AckFuture get(long key, int hash, byte[] ack, boolean remove) {
+			synchronized (this) {
+				int mask = this.values.length - 1;
+				for (int index = hash & mask; this.values[index] != null; index = (index + 1) & mask) {
+					Object value = this.values[index];
+					if (value != DefaultAcks.REMOVED && this.keys[index] == key && this.same(value, ack)) {
+						if (remove) {
+							this.values[index] = DefaultAcks.REMOVED;
+							this.size--;
+						}
+						return AckFuture.class.cast(value);
+					}
+				}
+				return null;
+			}
+		}
+
+		/**
+		 * 清理已删除标记, 有效数量超过一半容量时扩容
+		 */
+		private void rehash() {
+			long[] keys = this.keys;
+			Object[] values = this.values;
+			int capacity = this.size * 2 >= values.length ? values.length << 1 : values.length;
+			this.keys = new long[capacity];
+			this.values = new Object[capacity];
+			this.used = 0;
+			int mask = capacity - 1;
+			for (int current = 0; current < values.length; current++) {
+				if (values[current] != null && values[current] != DefaultAcks.REMOVED) {
+					int index = DefaultAcks.hash(keys[current]) & mask;
+					while (this.values[index] != null) {
+						index = (index + 1) & mask;
+					}
+					this.keys[index] = keys[current];
+					this.values[index] = values[current];
+					this.used++;
+				}
+			}
+		}
+	}
+}
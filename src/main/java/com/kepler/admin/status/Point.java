@@ -1,7 +1,6 @@
 package com.kepler.admin.status;
 
 import java.io.Serializable;
-import java.util.List;
 
 /**
  * 时间点数据
@@ -12,16 +11,16 @@ import java.util.List;
 public interface Point extends Serializable {
 
 	/**
-	 * 时间点
+	 * 时间点(按时间顺序, 读取时复制)
 	 * 
 	 * @return
 	 */
-	public List<Long> times();
+	public long[] times();
 
 	/**
-	 * 关联时间点的数据集
+	 * 关联时间点的数据集(按时间顺序, 读取时复制)
 	 * 
 	 * @return
 	 */
-	public List<Long> datas();
+	public long[] datas();
 }
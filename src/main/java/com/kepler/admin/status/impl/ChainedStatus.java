@@ -11,6 +11,13 @@ import com.kepler.admin.status.Status;
  */
 public class ChainedStatus implements Status {
 
+	/**
+	 * 输出缓冲, 交替复用(返回结果在下次Get前保持不变)
+	 */
+	private Map<String, Object> status_one = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
+
+	private Map<String, Object> status_two = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
+
 	private final List<Status> status;
 
 	public ChainedStatus(List<Status> status) {
@@ -19,12 +26,14 @@ public class ChainedStatus implements Status {
 	}
 
 	@Override
-	public Map<String, Object> get() {
-		// 每次新建
-		Map<String, Object> result = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
+	synchronized public Map<String, Object> get() {
+		Map<String, Object> result = this.status_one;
+		result.clear();
 		for (Status each : this.status) {
 			result.putAll(each.get());
 		}
+		this.status_one = this.status_two;
+		this.status_two = result;
 		return result;
 	}
 }
@@ -1,78 +1,110 @@
 package com.kepler.admin.status.impl;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
+import java.util.Arrays;
 
 import com.kepler.admin.status.Point;
 
 /**
+ * 固定容量环形缓冲(原始类型), 追加无分配, 超出容量时覆盖最旧数据
+ *
  * @author KimShen
  *
  */
 public class DefaultPoint implements Point {
 
-	private static final Log LOGGER = LogFactory.getLog(DefaultPoint.class);
+	private static final long serialVersionUID = 2L;
 
-	private static final long serialVersionUID = 1L;
+	private final long[] times;
 
-	private final List<Long> times;
+	private final long[] datas;
 
-	private final List<Long> datas;
+	/**
+	 * 下一写入位置
+	 */
+	private int head;
 
 	/**
-	 * 上限
+	 * 有效数量
 	 */
-	transient private byte max;
+	private int size;
 
 	/**
 	 * @param max 最大上线
 	 */
 	public DefaultPoint(byte max) {
-		this.times = new ArrayList<Long>(max);
-		this.datas = new ArrayList<Long>(max);
-		this.max = max;
+		this.times = new long[Math.max(max, 1)];
+		this.datas = new long[Math.max(max, 1)];
+	}
+
+	/**
+	 * 最旧数据位置
+	 *
+	 * @return
+	 */
+	private int tail() {
+		return (this.head - this.size + this.times.length) % this.times.length;
+	}
+
+	/**
+	 * 按时间顺序复制
+	 *
+	 * @param source
+	 * @return
+	 */
+	private long[] ordered(long[] source) {
+		long[] ordered = new long[this.size];
+		for (int index = 0, tail = this.tail(); index < this.size; index++) {
+			ordered[index] = source[(tail + index) % source.length];
+		}
+		return ordered;
 	}
 
 	@Override
-	public List<Long> times() {
-		return this.times;
+	synchronized public long[] times() {
+		return this.ordered(this.times);
 	}
 
 	@Override
-	public List<Long> datas() {
-		return this.datas;
+	synchronized public long[] datas() {
+		return this.ordered(this.datas);
 	}
 
 	/**
 	 * 追加数据
-	 * 
+	 *
 	 * @param data
 	 */
-	public void add(long time, long data) {
-		// 超过索引立即返回
-		if (this.times.size() > this.max) {
-			DefaultPoint.LOGGER.warn("Array out of range. [max=" + this.max + "][index=" + this.times.size() + "]");
-			return;
+	synchronized public void add(long time, long data) {
+		this.times[this.head] = time;
+		this.datas[this.head] = data;
+		this.head = (this.head + 1) % this.times.length;
+		this.size = Math.min(this.size + 1, this.times.length);
+	}
+
+	/**
+	 * 将当前数据按时间顺序复制至目标(复用目标数组)并重置
+	 *
+	 * @param target
+	 * @return
+	 */
+	synchronized public DefaultPoint drain(DefaultPoint target) {
+		target.reset();
+		for (int index = 0, tail = this.tail(); index < this.size; index++) {
+			target.add(this.times[(tail + index) % this.times.length], this.datas[(tail + index) % this.datas.length]);
 		}
-		this.times.add(time);
-		this.datas.add(data);
+		this.reset();
+		return target;
 	}
 
 	/**
 	 * 重置
-	 * 
-	 * @param begin
-	 * @param init
 	 */
-	public void reset() {
-		this.times.clear();
-		this.datas.clear();
+	synchronized public void reset() {
+		this.head = 0;
+		this.size = 0;
 	}
 
 	public String toString() {
-		return "[max=" + this.max + "][index=" + this.datas.size() + "][times=" + this.times + "][datas=" + this.datas + "]";
+		return "[max=" + this.times.length + "][size=" + this.size + "][times=" + Arrays.toString(this.times()) + "][datas=" + Arrays.toString(this.datas()) + "]";
 	}
 }
@@ -11,31 +11,46 @@ import com.kepler.admin.status.Status;
  */
 abstract class StatusDynamic implements Status {
 
-	volatile protected Map<String, Object> status_one = new HashMap<String, Object>();
+	/**
+	 * 采集缓冲(Refresh线程写入)
+	 */
+	private final Map<String, DefaultPoint> points = new HashMap<String, DefaultPoint>();
+
+	/**
+	 * 输出缓冲, 交替复用(返回结果在下次Get前保持不变)
+	 */
+	private Map<String, Object> status_one = new HashMap<String, Object>();
 
-	volatile protected Map<String, Object> status_two = new HashMap<String, Object>();
+	private Map<String, Object> status_two = new HashMap<String, Object>();
 
 	private final String[] fields;
 
 	protected StatusDynamic(String[] fields) {
 		super();
 		this.fields = fields;
+		for (String field : this.fields) {
+			this.points.put(field, new DefaultPoint(this.max()));
+		}
 		this.init(this.status_one);
 		this.init(this.status_two);
 	}
 
 	@Override
-	public Map<String, Object> get() {
-		// 交换并重置缓存
+	synchronized public Map<String, Object> get() {
 		Map<String, Object> current = this.status_one;
-		this.status_one = this.reset(this.status_two);
+		// 转移采集数据至输出缓冲(无分配)
+		for (String field : this.fields) {
+			this.points.get(field).drain(DefaultPoint.class.cast(current.get(field)));
+		}
+		// 交换缓存
+		this.status_one = this.status_two;
 		this.status_two = current;
 		return current;
 	}
 
 	/**
 	 * 初始化
-	 * 
+	 *
 	 * @param status
 	 */
 	protected void init(Map<String, Object> status) {
@@ -46,25 +61,13 @@ abstract class StatusDynamic implements Status {
 
 	/**
 	 * 追加数据
-	 * 
+	 *
 	 * @param field
 	 * @param time
 	 * @param data
 	 */
 	protected void add(String field, long time, long data) {
-		DefaultPoint.class.cast(this.status_one.get(field)).add(time, data);
-	}
-
-	/**
-	 * 重置
-	 * 
-	 * @param status
-	 */
-	protected Map<String, Object> reset(Map<String, Object> status) {
-		for (String field : this.fields) {
-			DefaultPoint.class.cast(status.get(field)).reset();
-		}
-		return status;
+		this.points.get(field).add(time, data);
 	}
 
 	abstract protected byte max();
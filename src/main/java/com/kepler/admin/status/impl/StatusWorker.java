@@ -0,0 +1,62 @@
+package com.kepler.admin.status.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.kepler.admin.status.Refresh;
+import com.kepler.config.PropertiesUtils;
+import com.kepler.thread.WorkerExecutor;
+
+/**
+ * 独立线程池排队, 活跃及拒绝数量
+ * 
+ * @author KimShen
+ *
+ */
+public class StatusWorker extends StatusDynamic implements Refresh {
+
+	// 允许收集的最大数量(每个周期)
+	private static final byte MAX = PropertiesUtils.get(StatusWorker.class.getName().toLowerCase() + ".max", (byte) 10);
+
+	private final List<WorkerExecutor> workers;
+
+	/**
+	 * 上次刷新时的拒绝数量(计算增量)
+	 */
+	private final long[] rejected;
+
+	public StatusWorker(List<WorkerExecutor> workers) {
+		super(StatusWorker.fields(workers));
+		this.workers = workers;
+		this.rejected = new long[workers.size()];
+	}
+
+	private static String[] fields(List<WorkerExecutor> workers) {
+		List<String> fields = new ArrayList<String>();
+		for (WorkerExecutor worker : workers) {
+			fields.add("worker_" + worker.name() + "_queue");
+			fields.add("worker_" + worker.name() + "_active");
+			fields.add("worker_" + worker.name() + "_rejected");
+		}
+		return fields.toArray(new String[fields.size()]);
+	}
+
+	@Override
+	public void refresh() {
+		// 当前时间
+		long current = System.currentTimeMillis();
+		for (int index = 0; index < this.workers.size(); index++) {
+			WorkerExecutor worker = this.workers.get(index);
+			long rejected = worker.rejected();
+			super.add("worker_" + worker.name() + "_queue", current, worker.queue());
+			super.add("worker_" + worker.name() + "_active", current, worker.active());
+			super.add("worker_" + worker.name() + "_rejected", current, rejected - this.rejected[index]);
+			this.rejected[index] = rejected;
+		}
+	}
+
+	@Override
+	protected byte max() {
+		return StatusWorker.MAX;
+	}
+}
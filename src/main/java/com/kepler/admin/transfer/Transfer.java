@@ -25,8 +25,7 @@ public interface Transfer extends Serializable {
 	 * @return
 	 */
 	public long rtt();
-	
-	
+
 	/**
 	 * 最大耗时
 	 * 
@@ -34,6 +33,19 @@ public interface Transfer extends Serializable {
 	 */
 	public long max();
 
+	/**
+	 * 耗时分位(P50)
+	 * 
+	 * @return
+	 */
+	public long p50();
+
+	public long p90();
+
+	public long p99();
+
+	public long p999();
+
 	/**
 	 * 累计数量
 	 * 
@@ -0,0 +1,130 @@
+package com.kepler.admin.transfer.impl;
+
+import com.kepler.admin.transfer.Transfer;
+import com.kepler.host.Host;
+import com.kepler.org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * 单个周期的只读快照
+ *
+ * @author KimShen
+ *
+ */
+public class CompressTransfer implements Transfer {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Host local;
+
+	private final Host target;
+
+	private final long rtt;
+
+	private final long max;
+
+	private final long total;
+
+	private final long timeout;
+
+	private final long exception;
+
+	private final long timestamp;
+
+	private final long p50;
+
+	private final long p90;
+
+	private final long p99;
+
+	private final long p999;
+
+	public CompressTransfer(Host local, Host target, long timestamp, long[] counters) {
+		super();
+		this.local = local;
+		this.target = target;
+		this.timestamp = timestamp;
+		this.rtt = counters[DefaultTransfer.RTT];
+		this.max = counters[DefaultTransfer.MAX];
+		this.total = counters[DefaultTransfer.TOTAL];
+		this.timeout = counters[DefaultTransfer.TIMEOUT];
+		this.exception = counters[DefaultTransfer.EXCEPTION];
+		this.p50 = Histogram.quantile(counters, DefaultTransfer.BUCKET, this.total, this.max, 0.5);
+		this.p90 = Histogram.quantile(counters, DefaultTransfer.BUCKET, this.total, this.max, 0.9);
+		this.p99 = Histogram.quantile(counters, DefaultTransfer.BUCKET, this.total, this.max, 0.99);
+		this.p999 = Histogram.quantile(counters, DefaultTransfer.BUCKET, this.total, this.max, 0.999);
+	}
+
+	@Override
+	public void reset() {
+		// 只读, 禁止修改
+	}
+
+	@Override
+	public Host local() {
+		return this.local;
+	}
+
+	@Override
+	public Host target() {
+		return this.target;
+	}
+
+	@Override
+	public long rtt() {
+		return this.rtt;
+	}
+
+	@Override
+	public long max() {
+		return this.max;
+	}
+
+	@Override
+	public long total() {
+		return this.total;
+	}
+
+	@Override
+	public long timeout() {
+		return this.timeout;
+	}
+
+	@Override
+	public long exception() {
+		return this.exception;
+	}
+
+	@Override
+	public long timestamp() {
+		return this.timestamp;
+	}
+
+	@Override
+	public long p50() {
+		return this.p50;
+	}
+
+	@Override
+	public long p90() {
+		return this.p90;
+	}
+
+	@Override
+	public long p99() {
+		return this.p99;
+	}
+
+	@Override
+	public long p999() {
+		return this.p999;
+	}
+
+	@Override
+	public boolean actived() {
+		return this.total != 0;
+	}
+
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this);
+	}
+}
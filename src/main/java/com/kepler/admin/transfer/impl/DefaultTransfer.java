@@ -1,5 +1,8 @@
 package com.kepler.admin.transfer.impl;
 
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 import com.kepler.ack.Status;
 import com.kepler.admin.transfer.Transfer;
 import com.kepler.config.PropertiesUtils;
@@ -9,6 +12,8 @@ import com.kepler.service.Service;
 import com.kepler.trace.TraceCauses;
 
 /**
+ * 实时统计, 按线程分段累加(无锁), 快照时在两个预分配周期间切换
+ *
  * @author KimShen
  *
  */
@@ -24,37 +29,60 @@ public class DefaultTransfer implements Transfer {
 	 */
 	private static final double THRESHOLD = PropertiesUtils.get(DefaultTransfer.class.getName().toLowerCase() + ".threshold", 5);
 
+	/**
+	 * 分段数量(2的幂, 默认4), 分段按需分配
+	 */
+	private static final int STRIPES = Integer.highestOneBit(Math.max(PropertiesUtils.get(DefaultTransfer.class.getName().toLowerCase() + ".stripes", 4), 1));
+
 	private static final long serialVersionUID = 1L;
 
 	/**
-	 * 不做序列化
+	 * 计数布局
 	 */
-	transient private final TraceCauses trace;
+	static final int TOTAL = 0;
 
-	private final Service service;
+	static final int RTT = 1;
 
-	private final String method;
+	static final int MAX = 2;
 
-	private final Host target;
+	static final int TIMEOUT = 3;
 
-	private final Host local;
+	static final int EXCEPTION = 4;
 
-	private long rtt;
+	/**
+	 * 直方图起始位置
+	 */
+	static final int BUCKET = 5;
 
-	private long max;
+	static final int LENGTH = DefaultTransfer.BUCKET + Histogram.BUCKETS;
 
-	private long total;
+	/**
+	 * 不做序列化
+	 */
+	transient private final TraceCauses trace;
 
-	private long freeze;
+	/**
+	 * 当前周期
+	 */
+	transient volatile private Interval interval = new Interval();
 
-	private long timeout;
+	/**
+	 * 备用周期(上一周期, 已排空)
+	 */
+	transient private Interval standby = new Interval();
+
+	private final Service service;
+
+	private final String method;
 
-	private long exception;
+	private final Host target;
+
+	private final Host local;
 
 	/**
-	 * 实际首次收集时间
+	 * 连续空周期数量(仅快照线程访问)
 	 */
-	volatile private long timestamp;
+	private long freeze;
 
 	public DefaultTransfer(TraceCauses trace, Service service, String method, Host local, Host target) {
 		super();
@@ -63,33 +91,70 @@ public class DefaultTransfer implements Transfer {
 		this.target = target;
 		this.method = method;
 		this.service = service;
-		this.timestamp = System.currentTimeMillis();
 	}
 
 	/**
-	 * 如果当前Max大于平均耗时指定阈值则记录Trace
+	 * 如果当前周期Max大于平均耗时指定阈值则记录Trace
+	 *
+	 * @param snapshot
 	 */
-	private void max4trace() {
-		double max = new Double(this.max);
-		double avg = this.rtt / this.total;
-		if (max / avg > DefaultTransfer.THRESHOLD) {
-			this.trace.put(this.service, this.method, "Warning request. [max=" + max + "(ms)][avg=" + avg + "]");
+	private void max4trace(Transfer snapshot) {
+		double max = snapshot.max();
+		double avg = (double) snapshot.rtt() / snapshot.total();
+		if (avg > 0 && max / avg > DefaultTransfer.THRESHOLD) {
+			this.trace.put(this.service, this.method, "Warning request. [max=" + max + "(ms)][avg=" + avg + "][p99=" + snapshot.p99() + "]");
 		}
 	}
 
 	/**
 	 * 如果连续N次没有请求量则进入冻结状态,用于主机永久性离线后的Transfer清理
-	 * 
+	 *
 	 * @return
 	 */
 	public boolean freezed() {
-		if (this.total == 0) {
-			return (this.freeze++) > DefaultTransfer.FREEZE;
-		} else {
+		return this.freeze > DefaultTransfer.FREEZE;
+	}
+
+	/**
+	 * 记录单次请求
+	 *
+	 * @param status
+	 * @param rtt
+	 * @return
+	 */
+	public DefaultTransfer record(Status status, long rtt) {
+		this.interval.stripe().record(status, rtt);
+		return this;
+	}
+
+	/**
+	 * 切换周期并返回上一周期快照
+	 *
+	 * @return
+	 */
+	synchronized public Transfer snapshot() {
+		Interval interval = this.interval;
+		// 切换至备用周期, 切换后写入退役周期的数据保留至其下次启用时统计
+		this.interval = this.standby.activate();
+		this.standby = interval;
+		Transfer snapshot = new CompressTransfer(this.local, this.target, interval.timestamp, interval.drain());
+		if (snapshot.actived()) {
 			// 任一请求有效则重置计数
 			this.freeze = 0;
-			return false;
+			this.max4trace(snapshot);
+		} else {
+			this.freeze++;
 		}
+		return snapshot;
+	}
+
+	/**
+	 * 当前周期(未切换)的合并结果
+	 *
+	 * @return
+	 */
+	private long counter(int index) {
+		return this.interval.merge()[index];
 	}
 
 	@Override
@@ -103,72 +168,175 @@ public class DefaultTransfer implements Transfer {
 	}
 
 	public long rtt() {
-		return this.rtt;
+		return this.counter(DefaultTransfer.RTT);
 	}
 
 	public long max() {
-		return this.max;
+		return this.counter(DefaultTransfer.MAX);
+	}
+
+	public long p50() {
+		return this.quantile(0.5);
+	}
+
+	public long p90() {
+		return this.quantile(0.9);
+	}
+
+	public long p99() {
+		return this.quantile(0.99);
+	}
+
+	public long p999() {
+		return this.quantile(0.999);
+	}
+
+	private long quantile(double quantile) {
+		long[] counters = this.interval.merge();
+		return Histogram.quantile(counters, DefaultTransfer.BUCKET, counters[DefaultTransfer.TOTAL], counters[DefaultTransfer.MAX], quantile);
 	}
 
 	public long total() {
-		return this.total;
+		return this.counter(DefaultTransfer.TOTAL);
 	}
 
 	public long timeout() {
-		return this.timeout;
+		return this.counter(DefaultTransfer.TIMEOUT);
 	}
 
 	public long exception() {
-		return this.exception;
+		return this.counter(DefaultTransfer.EXCEPTION);
 	}
 
 	public long timestamp() {
-		return this.timestamp;
+		return this.interval.timestamp;
 	}
 
 	public boolean actived() {
-		return this.total != 0;
+		return this.total() != 0;
 	}
 
-	public DefaultTransfer touch() {
-		this.total++;
-		return this;
+	synchronized public void reset() {
+		this.interval.drain();
+		this.standby.drain();
+		this.interval.activate();
 	}
 
-	public DefaultTransfer rtt(long rtt) {
-		this.rtt += rtt;
-		// 更新最大耗时
-		if (this.max < this.rtt) {
-			this.max = this.rtt;
-			this.max4trace();
-		}
-		return this;
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this);
 	}
 
-	public DefaultTransfer timeout(Status status) {
-		if (status.equals(Status.TIMEOUT)) {
-			this.timeout++;
+	/**
+	 * 单个统计周期
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private static class Interval {
+
+		private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<Stripe>(DefaultTransfer.STRIPES);
+
+		/**
+		 * 周期起始时间
+		 */
+		volatile private long timestamp = System.currentTimeMillis();
+
+		/**
+		 * 启用周期
+		 *
+		 * @return
+		 */
+		public Interval activate() {
+			this.timestamp = System.currentTimeMillis();
+			return this;
 		}
-		return this;
-	}
 
-	public DefaultTransfer exception(Status status) {
-		if (status.equals(Status.EXCEPTION)) {
-			this.exception++;
+		/**
+		 * 当前线程对应分段(首次使用时分配)
+		 *
+		 * @return
+		 */
+		public Stripe stripe() {
+			int index = (int) Thread.currentThread().getId() & (DefaultTransfer.STRIPES - 1);
+			Stripe stripe = this.stripes.get(index);
+			if (stripe == null) {
+				this.stripes.compareAndSet(index, null, new Stripe());
+				stripe = this.stripes.get(index);
+			}
+			return stripe;
 		}
-		return this;
-	}
 
-	public void reset() {
-		this.rtt = 0;
-		this.max = 0;
-		this.total = 0;
-		this.timeout = 0;
-		this.exception = 0;
-		this.timestamp = System.currentTimeMillis();
+		/**
+		 * 合并分段(不修改计数)
+		 *
+		 * @return
+		 */
+		public long[] merge() {
+			return this.merge(false);
+		}
+
+		/**
+		 * 合并并扣减已读取的计数, 并发写入的增量保留在分段中
+		 *
+		 * @return
+		 */
+		public long[] drain() {
+			return this.merge(true);
+		}
+
+		private long[] merge(boolean drain) {
+			long[] merged = new long[DefaultTransfer.LENGTH];
+			for (int each = 0; each < this.stripes.length(); each++) {
+				Stripe stripe = this.stripes.get(each);
+				if (stripe == null) {
+					continue;
+				}
+				for (int index = 0; index < DefaultTransfer.LENGTH; index++) {
+					long value = stripe.counters.get(index);
+					if (index == DefaultTransfer.MAX) {
+						merged[index] = Math.max(merged[index], value);
+						if (drain && value != 0) {
+							// 仅在未被并发更新时清零
+							stripe.counters.compareAndSet(index, value, 0);
+						}
+					} else {
+						merged[index] += value;
+						if (drain && value != 0) {
+							stripe.counters.addAndGet(index, -value);
+						}
+					}
+				}
+			}
+			return merged;
+		}
 	}
 
-	public String toString() {
-		return ToStringBuilder.reflectionToString(this);
+	/**
+	 * 分段计数(计数 + 直方图)
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private static class Stripe {
+
+		private final AtomicLongArray counters = new AtomicLongArray(DefaultTransfer.LENGTH);
+
+		public void record(Status status, long rtt) {
+			this.counters.incrementAndGet(DefaultTransfer.TOTAL);
+			this.counters.addAndGet(DefaultTransfer.RTT, rtt);
+			this.counters.incrementAndGet(DefaultTransfer.BUCKET + Histogram.index(rtt));
+			if (Status.TIMEOUT.equals(status)) {
+				this.counters.incrementAndGet(DefaultTransfer.TIMEOUT);
+			}
+			if (Status.EXCEPTION.equals(status)) {
+				this.counters.incrementAndGet(DefaultTransfer.EXCEPTION);
+			}
+			// 更新单次最大耗时
+			for (long max = this.counters.get(DefaultTransfer.MAX); max < rtt; max = this.counters.get(DefaultTransfer.MAX)) {
+				if (this.counters.compareAndSet(DefaultTransfer.MAX, max, rtt)) {
+					return;
+				}
+			}
+		}
 	}
 }
@@ -1,6 +1,8 @@
 package com.kepler.admin.transfer.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -66,6 +68,20 @@ public class DefaultTransfers implements Transfers {
 		}
 	}
 
+	/**
+	 * 切换所有Transfer周期并返回上一周期快照, 同时清理冻结Transfer
+	 * 
+	 * @return
+	 */
+	public CompressTransfers snapshot() {
+		List<Transfer> snapshots = new ArrayList<Transfer>();
+		for (Transfer transfer : this.transfers.values()) {
+			snapshots.add(DefaultTransfer.class.cast(transfer).snapshot());
+		}
+		this.clear();
+		return new CompressTransfers(this.service(), this.version(), this.method, snapshots);
+	}
+
 	public void reset() {
 		for (Transfer transfer : this.transfers.values()) {
 			transfer.reset();
@@ -93,7 +109,7 @@ public class DefaultTransfers implements Transfers {
 	public Transfer put(Host local, Host remote, Status status, long rtt) {
 		Transfer transfer = this.transfers.get(new Hosts(local, remote));
 		transfer = (transfer != null ? transfer : this.get(local, remote, new DefaultTransfer(DefaultTransfers.this.trace, DefaultTransfers.this.service, DefaultTransfers.this.method, local, remote)));
-		return DefaultTransfer.class.cast(transfer).touch().rtt(rtt).timeout(status).exception(status);
+		return DefaultTransfer.class.cast(transfer).record(status, rtt);
 	}
 
 	public String toString() {
@@ -0,0 +1,85 @@
+package com.kepler.admin.transfer.impl;
+
+/**
+ * 固定分桶的对数-线性直方图(HDR风格), 每个2的幂区间划分为8个线性子桶, 相对误差不超过12.5%
+ *
+ * @author KimShen
+ *
+ */
+public class Histogram {
+
+	/**
+	 * 子桶位数
+	 */
+	private static final int SUB_BITS = 3;
+
+	private static final int SUB = 1 << Histogram.SUB_BITS;
+
+	/**
+	 * 最大可记录值(毫秒, 约131秒, 远大于调用超时), 超出部分归入最后一个桶. 共120个桶
+	 */
+	private static final long MAX = (1L << 17) - 1;
+
+	/**
+	 * 桶数量
+	 */
+	public static final int BUCKETS = Histogram.index(Histogram.MAX) + 1;
+
+	private Histogram() {
+	}
+
+	/**
+	 * 值对应的桶
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static int index(long value) {
+		// 负值(时钟回拨)记为0
+		long actual = Math.min(Math.max(value, 0), Histogram.MAX);
+		if (actual < Histogram.SUB) {
+			return (int) actual;
+		}
+		int shift = (63 - Long.numberOfLeadingZeros(actual)) - Histogram.SUB_BITS;
+		return (shift + 1) * Histogram.SUB + (int) ((actual >>> shift) & (Histogram.SUB - 1));
+	}
+
+	/**
+	 * 桶可表示的最大值
+	 *
+	 * @param index
+	 * @return
+	 */
+	public static long upper(int index) {
+		int shift = index / Histogram.SUB - 1;
+		if (shift <= 0) {
+			return index;
+		}
+		return ((long) (index % Histogram.SUB + Histogram.SUB) << shift) + (1L << shift) - 1;
+	}
+
+	/**
+	 * 计算分位值
+	 *
+	 * @param buckets 计数
+	 * @param offset 直方图在数组中的起始位置
+	 * @param total 总数
+	 * @param max 实际最大值, 用于修正桶上界
+	 * @param quantile (0, 1]
+	 * @return
+	 */
+	public static long quantile(long[] buckets, int offset, long total, long max, double quantile) {
+		if (total <= 0) {
+			return 0;
+		}
+		long rank = Math.max((long) Math.ceil(total * quantile), 1);
+		long current = 0;
+		for (int index = 0; index < Histogram.BUCKETS; index++) {
+			current += buckets[offset + index];
+			if (current >= rank) {
+				return Math.min(Histogram.upper(index), max);
+			}
+		}
+		return max;
+	}
+}
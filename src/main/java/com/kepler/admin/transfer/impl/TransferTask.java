@@ -1,8 +1,6 @@
 package com.kepler.admin.transfer.impl;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import com.kepler.admin.PeriodTask;
 import com.kepler.admin.transfer.Collector;
@@ -53,37 +51,9 @@ public class TransferTask extends PeriodTask {
 
 	@Override
 	protected void doing() {
-		Compress compressed = new Compress(this.transfers);
-		if (compressed.actived()) {
-			this.feeder.feed(compressed.transfers());
-		}
-	}
-
-	/**
-	 * 仅当存在传输数据是标记为激活
-	 * 
-	 * @author KimShen
-	 *
-	 */
-	private class Compress {
-
-		private final List<Transfers> transfers = new ArrayList<Transfers>();
-
-		private Compress(Collection<Transfers> transfers) {
-			for (Transfers each : transfers) {
-				CompressTransfers compressed = new CompressTransfers(each.service(), each.version(), each.method(), each.transfers());
-				if (compressed.actived()) {
-					this.transfers.add(compressed);
-				}
-			}
-		}
-
-		public boolean actived() {
-			return !this.transfers.isEmpty();
-		}
-
-		public List<Transfers> transfers() {
-			return this.transfers;
+		// Collector仅返回存在请求的Transfers
+		if (!this.transfers.isEmpty()) {
+			this.feeder.feed(this.transfers);
 		}
 	}
 }
@@ -0,0 +1,33 @@
+package com.kepler.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 客户端响应缓存(Key = Service + Method + 参数)
+ * 
+ * @author KimShen
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Inherited
+public @interface Cached {
+
+	/**
+	 * 存活时间(毫秒), 0表示使用默认值
+	 * 
+	 * @return
+	 */
+	public long ttl() default 0;
+
+	/**
+	 * 最大缓存数量, 0表示使用默认值
+	 * 
+	 * @return
+	 */
+	public int max() default 0;
+}
@@ -0,0 +1,339 @@
+package com.kepler.breaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.kepler.KeplerCircuitException;
+import com.kepler.config.PropertiesUtils;
+
+/**
+ * 熔断器(Closed, Open, Half Open), 基于滑动时间窗口统计成功, 失败, 超时及耗时
+ * 
+ * @author KimShen
+ *
+ */
+public class Breaker {
+
+	/**
+	 * 统计窗口(毫秒)
+	 */
+	private static final int WINDOW = Math.max(PropertiesUtils.get(Breaker.class.getName().toLowerCase() + ".window", 10000), 1);
+
+	/**
+	 * 窗口分桶数量
+	 */
+	private static final int BUCKETS = Math.max(Math.min(PropertiesUtils.get(Breaker.class.getName().toLowerCase() + ".buckets", 10), Breaker.WINDOW), 1);
+
+	private static final int SPAN = Breaker.WINDOW / Breaker.BUCKETS;
+
+	/**
+	 * 窗口内最少请求数, 低于该值不熔断
+	 */
+	private static final int VOLUME = PropertiesUtils.get(Breaker.class.getName().toLowerCase() + ".volume", 20);
+
+	/**
+	 * 失败(含超时)比例, 达到则熔断
+	 */
+	private static final double RATIO = PropertiesUtils.get(Breaker.class.getName().toLowerCase() + ".ratio", 0.5);
+
+	/**
+	 * 平均耗时(毫秒)超过该值则熔断, 0表示不检查
+	 */
+	private static final long SLOW = PropertiesUtils.get(Breaker.class.getName().toLowerCase() + ".slow", 0) * 1000000L;
+
+	/**
+	 * 熔断后进入半开前的等待时间(毫秒)
+	 */
+	private static final int SLEEP = PropertiesUtils.get(Breaker.class.getName().toLowerCase() + ".sleep", 5000);
+
+	/**
+	 * 半开时允许的探测请求数, 全部成功则关闭
+	 */
+	private static final int PROBES = Math.max(PropertiesUtils.get(Breaker.class.getName().toLowerCase() + ".probes", 3), 1);
+
+	private final AtomicReference<State> state = new AtomicReference<State>(State.CLOSED);
+
+	/**
+	 * 半开时未完成的探测数量
+	 */
+	private final AtomicInteger probes = new AtomicInteger();
+
+	/**
+	 * 半开时成功的探测数量
+	 */
+	private final AtomicInteger passed = new AtomicInteger();
+
+	private final Bucket[] buckets = new Bucket[Breaker.BUCKETS];
+
+	private final Breakers breakers;
+
+	private final String name;
+
+	/**
+	 * 进入Open的时间
+	 */
+	volatile private long opened;
+
+	/**
+	 * 是否已从Breakers移除
+	 */
+	volatile private boolean retired;
+
+	Breaker(Breakers breakers, String name) {
+		super();
+		this.name = name;
+		this.breakers = breakers;
+		for (int index = 0; index < this.buckets.length; index++) {
+			this.buckets[index] = new Bucket();
+		}
+	}
+
+	/**
+	 * 是否允许请求(不占用探测)
+	 * 
+	 * @return
+	 */
+	public boolean available() {
+		switch (this.state.get()) {
+		case CLOSED:
+			return true;
+		case OPEN:
+			return System.currentTimeMillis() - this.opened >= Breaker.SLEEP;
+		default:
+			return this.probes.get() < Breaker.PROBES;
+		}
+	}
+
+	/**
+	 * 获取请求许可, 拒绝则抛出KeplerCircuitException
+	 * 
+	 * @return 是否为半开探测请求
+	 */
+	public boolean acquire() {
+		State state = this.state.get();
+		if (State.CLOSED.equals(state)) {
+			return false;
+		}
+		// Open超过等待时间则进入Half Open(仅一个线程成功切换)
+		if (State.OPEN.equals(state) && System.currentTimeMillis() - this.opened >= Breaker.SLEEP) {
+			this.half();
+		}
+		if (State.HALF_OPEN.equals(this.state.get())) {
+			for (int current = this.probes.get(); current < Breaker.PROBES; current = this.probes.get()) {
+				if (this.probes.compareAndSet(current, current + 1)) {
+					return true;
+				}
+			}
+		}
+		throw new KeplerCircuitException("Circuit " + this.name + " is " + this.state.get() + " ... ");
+	}
+
+	/**
+	 * Open -> Half Open, 切换成功的线程在状态可见前重置探测计数(Open状态下不会分配探测)
+	 */
+	private void half() {
+		synchronized (this) {
+			if (!this.retired && State.OPEN.equals(this.state.get())) {
+				this.probes.set(0);
+				this.passed.set(0);
+				this.transfer(State.OPEN, State.HALF_OPEN);
+			}
+		}
+	}
+
+	/**
+	 * 归还探测, 上一轮半开遗留的探测不会使计数为负
+	 */
+	private void release() {
+		for (int current = this.probes.get(); current > 0; current = this.probes.get()) {
+			if (this.probes.compareAndSet(current, current - 1)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 成功
+	 * 
+	 * @param probe
+	 * @param elapse 耗时(纳秒)
+	 */
+	public void success(boolean probe, long elapse) {
+		Bucket bucket = this.bucket(System.currentTimeMillis());
+		bucket.success.incrementAndGet();
+		bucket.elapse.addAndGet(elapse);
+		if (probe) {
+			this.release();
+			// 探测全部成功则关闭
+			if (this.passed.incrementAndGet() >= Breaker.PROBES && this.transfer(State.HALF_OPEN, State.CLOSED)) {
+				this.reset();
+			}
+			return;
+		}
+		// 慢请求检查
+		if (Breaker.SLOW > 0 && elapse > Breaker.SLOW) {
+			this.check();
+		}
+	}
+
+	/**
+	 * 失败(框架异常)
+	 * 
+	 * @param probe
+	 * @param elapse 耗时(纳秒)
+	 */
+	public void failure(boolean probe, long elapse) {
+		Bucket bucket = this.bucket(System.currentTimeMillis());
+		bucket.failure.incrementAndGet();
+		bucket.elapse.addAndGet(elapse);
+		this.failed(probe);
+	}
+
+	/**
+	 * 超时
+	 * 
+	 * @param probe
+	 * @param elapse 耗时(纳秒)
+	 */
+	public void timeout(boolean probe, long elapse) {
+		Bucket bucket = this.bucket(System.currentTimeMillis());
+		bucket.timeout.incrementAndGet();
+		bucket.elapse.addAndGet(elapse);
+		this.failed(probe);
+	}
+
+	/**
+	 * 取消, 不计入统计
+	 * 
+	 * @param probe
+	 */
+	public void cancel(boolean probe) {
+		if (probe) {
+			this.release();
+		}
+	}
+
+	private void failed(boolean probe) {
+		if (probe) {
+			this.release();
+			// 任意探测失败则重新Open
+			this.open(State.HALF_OPEN);
+			return;
+		}
+		this.check();
+	}
+
+	/**
+	 * 统计窗口是否达到熔断条件
+	 */
+	private void check() {
+		if (!State.CLOSED.equals(this.state.get())) {
+			return;
+		}
+		long epoch = System.currentTimeMillis() / Breaker.SPAN;
+		long total = 0, failed = 0, elapse = 0;
+		for (Bucket each : this.buckets) {
+			// 仅统计窗口内的桶
+			if (epoch - each.epoch.get() < Breaker.BUCKETS) {
+				long success = each.success.get(), failure = each.failure.get() + each.timeout.get();
+				total += success + failure;
+				failed += failure;
+				elapse += each.elapse.get();
+			}
+		}
+		if (total < Breaker.VOLUME) {
+			return;
+		}
+		if (failed >= total * Breaker.RATIO || (Breaker.SLOW > 0 && elapse / total > Breaker.SLOW)) {
+			this.open(State.CLOSED);
+		}
+	}
+
+	private void open(State expect) {
+		this.opened = System.currentTimeMillis();
+		this.transfer(expect, State.OPEN);
+	}
+
+	private boolean transfer(State expect, State update) {
+		// 状态切换低频, 加锁保证与retire互斥
+		synchronized (this) {
+			if (!this.retired && this.state.compareAndSet(expect, update)) {
+				this.breakers.transfer(this, expect, update);
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * 废弃(主机下线), 此后状态切换不再通知Breakers
+	 * 
+	 * @return 废弃前状态
+	 */
+	State retire() {
+		synchronized (this) {
+			this.retired = true;
+			return this.state.getAndSet(State.CLOSED);
+		}
+	}
+
+	private void reset() {
+		for (Bucket each : this.buckets) {
+			each.reset(-1);
+		}
+	}
+
+	/**
+	 * 当前时间对应的桶, 过期则重置(并发重置时允许丢失少量样本)
+	 * 
+	 * @param now
+	 * @return
+	 */
+	private Bucket bucket(long now) {
+		long epoch = now / Breaker.SPAN;
+		Bucket bucket = this.buckets[(int) (epoch % this.buckets.length)];
+		long current = bucket.epoch.get();
+		if (current != epoch && bucket.epoch.compareAndSet(current, epoch)) {
+			bucket.reset(epoch);
+		}
+		return bucket;
+	}
+
+	public State state() {
+		return this.state.get();
+	}
+
+	public String toString() {
+		return this.name;
+	}
+
+	public enum State {
+
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private static class Bucket {
+
+		private final AtomicLong epoch = new AtomicLong(-1);
+
+		private final AtomicLong success = new AtomicLong();
+
+		private final AtomicLong failure = new AtomicLong();
+
+		private final AtomicLong timeout = new AtomicLong();
+
+		/**
+		 * 累计耗时(纳秒)
+		 */
+		private final AtomicLong elapse = new AtomicLong();
+
+		public void reset(long epoch) {
+			this.success.set(0);
+			this.failure.set(0);
+			this.timeout.set(0);
+			this.elapse.set(0);
+			this.epoch.set(epoch);
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package com.kepler.breaker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.kepler.admin.status.Status;
+import com.kepler.breaker.Breaker.State;
+import com.kepler.config.Profile;
+import com.kepler.config.PropertiesUtils;
+import com.kepler.host.Host;
+import com.kepler.protocol.Request;
+import com.kepler.quality.Quality;
+import com.kepler.service.Service;
+
+/**
+ * (Service, Host)或(Service, Host, Method)维度熔断器
+ * 
+ * @author KimShen
+ *
+ */
+public class Breakers implements Status {
+
+	/**
+	 * 是否开启熔断
+	 */
+	public static final String ENABLED_KEY = Breakers.class.getName().toLowerCase() + ".enabled";
+
+	/**
+	 * 是否按方法熔断
+	 */
+	public static final String METHOD_KEY = Breakers.class.getName().toLowerCase() + ".method";
+
+	private static final boolean ENABLED_DEF = PropertiesUtils.get(Breakers.ENABLED_KEY, false);
+
+	private static final boolean METHOD_DEF = PropertiesUtils.get(Breakers.METHOD_KEY, false);
+
+	private static final Log LOGGER = LogFactory.getLog(Breakers.class);
+
+	private final ConcurrentMap<Key, Breaker> breakers = new ConcurrentHashMap<Key, Breaker>();
+
+	/**
+	 * 非Closed状态的熔断器数量
+	 */
+	private final AtomicInteger unclosed = new AtomicInteger();
+
+	private final AtomicLong opened = new AtomicLong();
+
+	private final AtomicLong closed = new AtomicLong();
+
+	private final Quality quality;
+
+	private final Profile profile;
+
+	public Breakers(Profile profile, Quality quality) {
+		super();
+		this.profile = profile;
+		this.quality = quality;
+	}
+
+	/**
+	 * 获取熔断器, 未开启则返回Null
+	 * 
+	 * @param request
+	 * @param host
+	 * @return
+	 */
+	public Breaker get(Request request, Host host) {
+		if (!this.profile.get(request.service(), Breakers.ENABLED_KEY, Breakers.ENABLED_DEF)) {
+			return null;
+		}
+		Key key = this.key(request, host);
+		Breaker breaker = this.breakers.get(key);
+		if (breaker == null) {
+			Breaker created = new Breaker(this, key.toString());
+			breaker = this.breakers.putIfAbsent(key, created);
+			breaker = breaker != null ? breaker : created;
+		}
+		return breaker;
+	}
+
+	/**
+	 * 主机当前是否可用(不存在熔断器或熔断器允许请求)
+	 * 
+	 * @param request
+	 * @param host
+	 * @return
+	 */
+	public boolean available(Request request, Host host) {
+		Breaker breaker = this.breakers.get(this.key(request, host));
+		return breaker == null || breaker.available();
+	}
+
+	/**
+	 * 移除指定服务主机的熔断器(含方法级)
+	 * 
+	 * @param service
+	 * @param host
+	 */
+	public void remove(Service service, Host host) {
+		for (Map.Entry<Key, Breaker> each : this.breakers.entrySet()) {
+			Key key = each.getKey();
+			if (key.service.equals(service) && key.host.equals(host) && this.breakers.remove(key, each.getValue())) {
+				// 非Closed状态移除时修正计数
+				if (!State.CLOSED.equals(each.getValue().retire())) {
+					this.unclosed.decrementAndGet();
+				}
+				Breakers.LOGGER.info("[circuit-remove][breaker=" + each.getValue() + "]");
+			}
+		}
+	}
+
+	/**
+	 * 是否存在非Closed状态的熔断器
+	 * 
+	 * @return
+	 */
+	public boolean breaking() {
+		return this.unclosed.get() > 0;
+	}
+
+	private Key key(Request request, Host host) {
+		return new Key(request.service(), host, this.profile.get(request.service(), Breakers.METHOD_KEY, Breakers.METHOD_DEF) ? request.method() : null);
+	}
+
+	/**
+	 * 状态切换
+	 * 
+	 * @param breaker
+	 * @param from
+	 * @param to
+	 */
+	void transfer(Breaker breaker, State from, State to) {
+		if (State.CLOSED.equals(from)) {
+			this.unclosed.incrementAndGet();
+		}
+		if (State.CLOSED.equals(to)) {
+			this.unclosed.decrementAndGet();
+			this.closed.incrementAndGet();
+		}
+		if (State.OPEN.equals(to)) {
+			this.opened.incrementAndGet();
+			this.quality.breaking();
+		}
+		Breakers.LOGGER.warn("[circuit][breaker=" + breaker + "][from=" + from + "][to=" + to + "]");
+	}
+
+	@Override
+	public Map<String, Object> get() {
+		Map<String, Object> status = new HashMap<String, Object>();
+		status.put("breaker_unclosed", this.unclosed.get());
+		status.put("breaker_opened", this.opened.getAndSet(0));
+		status.put("breaker_closed", this.closed.getAndSet(0));
+		return status;
+	}
+
+	private static class Key {
+
+		private final Service service;
+
+		private final Host host;
+
+		private final String method;
+
+		private final int hash;
+
+		private Key(Service service, Host host, String method) {
+			super();
+			this.host = host;
+			this.method = method;
+			this.service = service;
+			this.hash = service.hashCode() ^ host.hashCode() ^ (method != null ? method.hashCode() : 0);
+		}
+
+		public int hashCode() {
+			return this.hash;
+		}
+
+		public boolean equals(Object ob) {
+			if (ob == this) {
+				return true;
+			}
+			if (!(ob instanceof Key)) {
+				return false;
+			}
+			Key key = Key.class.cast(ob);
+			return this.service.equals(key.service) && this.host.equals(key.host) && (this.method != null ? this.method.equals(key.method) : key.method == null);
+		}
+
+		public String toString() {
+			return "[service=" + this.service + "][host=" + this.host.address() + "][method=" + this.method + "]";
+		}
+	}
+}
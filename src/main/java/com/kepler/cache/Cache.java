@@ -1,7 +1,12 @@
 package com.kepler.cache;
 
+import java.lang.reflect.Method;
+
+import com.kepler.invoker.Invoker;
+import com.kepler.protocol.Request;
+
 /**
- * 相对于Servce.method的缓存
+ * 相对于Servce.method的缓存(Key = 参数)
  * 
  * @author KimShen
  *
@@ -9,26 +14,15 @@ package com.kepler.cache;
 public interface Cache {
 
 	/**
-	 * 获取缓存
-	 * 
-	 * @return
-	 */
-	public Object get();
-
-	/**
-	 * 重置缓存
-	 * 
-	 * @param response 缓存内容
-	 * @return
-	 */
-	public Object set(Object response);
-
-	/**
-	 * 是否过期
+	 * 获取缓存, 不存在或过期则通过Invoker加载(相同Key的并发加载仅执行一次)
 	 * 
+	 * @param request
+	 * @param method
+	 * @param invoker
 	 * @return
+	 * @throws Throwable
 	 */
-	public boolean expired();
+	public Object get(Request request, Method method, Invoker invoker) throws Throwable;
 
 	/**
 	 * 重置缓存
@@ -13,16 +13,7 @@ public interface CacheContext {
 	 * 
 	 * @param service
 	 * @param method
-	 * @return 当前缓存对象, 通过expired判断是否过期
+	 * @return 当前缓存对象, 未开启缓存则直接使用Invoker加载
 	 */
 	public Cache get(Service service, String method);
-
-	/**
-	 * 更新缓存
-	 * 
-	 * @param service
-	 * @param method
-	 * @param response 需要更新的缓存值
-	 */
-	public void set(Service service, String method, Object response);
 }
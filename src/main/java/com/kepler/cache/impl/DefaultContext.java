@@ -1,8 +1,13 @@
 package com.kepler.cache.impl;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -11,11 +16,16 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.util.StringUtils;
 
+import com.kepler.admin.status.Status;
+import com.kepler.annotation.Cached;
 import com.kepler.cache.Cache;
 import com.kepler.cache.CacheContext;
 import com.kepler.cache.CacheExpired;
 import com.kepler.config.Profile;
 import com.kepler.config.PropertiesUtils;
+import com.kepler.invoker.Invoker;
+import com.kepler.protocol.Request;
+import com.kepler.serial.Serials;
 import com.kepler.service.Imported;
 import com.kepler.service.Service;
 
@@ -23,38 +33,75 @@ import com.kepler.service.Service;
  * @author KimShen
  *
  */
-public class DefaultContext implements Imported, CacheContext, CacheExpired {
+public class DefaultContext implements Imported, CacheContext, CacheExpired, Status {
 
 	/**
-	 * 配置格式
-	 * 
-	 * [method-1,10][method-2,15]
+	 * 配置格式(单条缓存最大读取次数, 为空则不限制)
+	 *
+	 * [method-1,10][method-2,]
 	 */
 	private static final String METHOD_KEY = DefaultContext.class.getName().toLowerCase() + ".methods";
 
 	private static final String METHOD_DEF = "";
 
+	/**
+	 * 默认存活时间(毫秒), 方法级配置为[key].[method]
+	 */
+	private static final String TTL_KEY = DefaultContext.class.getName().toLowerCase() + ".ttl";
+
+	private static final long TTL_DEF = PropertiesUtils.get(DefaultContext.TTL_KEY, 60000L);
+
+	/**
+	 * 仅通过[method,N]开启(无注解)时的默认存活时间, 未配置则不过期(与原按次数过期语义一致)
+	 */
+	private static final long TTL_COUNTED_DEF = PropertiesUtils.get(DefaultContext.TTL_KEY, 0L);
+
+	/**
+	 * 默认最大缓存数量, 方法级配置为[key].[method]
+	 */
+	private static final String MAX_KEY = DefaultContext.class.getName().toLowerCase() + ".max";
+
+	private static final int MAX_DEF = PropertiesUtils.get(DefaultContext.MAX_KEY, 1024);
+
+	private static final byte[] EMPTY = new byte[0];
+
 	private static final Log LOGGER = LogFactory.getLog(DefaultContext.class);
 
-	private final Map<Service, Caches> caches = new HashMap<Service, Caches>();
+	private final Map<Service, Caches> caches = new ConcurrentHashMap<Service, Caches>();
 
 	/**
 	 * 用于没有开启缓存服务的Null Object
 	 */
 	private final Cache empty = new EmptyCache();
 
+	private final AtomicLong hit = new AtomicLong();
+
+	private final AtomicLong miss = new AtomicLong();
+
+	/**
+	 * 合并加载次数
+	 */
+	private final AtomicLong coalesced = new AtomicLong();
+
+	private final AtomicLong expired = new AtomicLong();
+
+	private final AtomicLong eviction = new AtomicLong();
+
 	private final Profile profile;
 
-	public DefaultContext(Profile profile) {
+	private final Serials serials;
+
+	public DefaultContext(Profile profile, Serials serials) {
 		super();
 		this.profile = profile;
+		this.serials = serials;
 	}
 
 	@Override
 	public void subscribe(Service service) throws Exception {
 		try {
 			// 预加载Service对应缓存
-			this.caches.put(service, new Caches(service, PropertiesUtils.profile(DefaultContext.METHOD_KEY, this.profile.profile(service), DefaultContext.METHOD_DEF)));
+			this.caches.put(service, new Caches(service, this.profile.get(service, DefaultContext.METHOD_KEY, DefaultContext.METHOD_DEF)));
 		} catch (ClassNotFoundException | NoClassDefFoundError e) {
 			DefaultContext.LOGGER.warn("Class not found: " + service.service());
 		}
@@ -66,40 +113,48 @@ public class DefaultContext implements Imported, CacheContext, CacheExpired {
 
 	@Override
 	public boolean expired(Service service, String method) {
-		return this.caches.get(service).get(method).invalid();
+		return this.get(service, method).invalid();
 	}
 
 	@Override
-	public void set(Service service, String method, Object response) {
-		this.caches.get(service).get(method).set(response);
+	public Cache get(Service service, String method) {
+		Caches caches = this.caches.get(service);
+		return caches != null ? caches.get(method) : this.empty;
 	}
 
 	@Override
-	public Cache get(Service service, String method) {
-		return this.caches.get(service).get(method);
+	public Map<String, Object> get() {
+		Map<String, Object> status = new HashMap<String, Object>();
+		status.put("cache_hit", this.hit.getAndSet(0));
+		status.put("cache_miss", this.miss.getAndSet(0));
+		status.put("cache_coalesced", this.coalesced.getAndSet(0));
+		status.put("cache_expired", this.expired.getAndSet(0));
+		status.put("cache_eviction", this.eviction.getAndSet(0));
+		return status;
 	}
 
 	/**
-	 * 空Cache
-	 * 
+	 * 参数序列化, 用于稳定Key
+	 *
+	 * @param request
+	 * @return
+	 */
+	private byte[] args(Request request) {
+		Object[] args = request.args();
+		return args == null || args.length == 0 ? DefaultContext.EMPTY : this.serials.output(request.serial()).output(args, Object[].class);
+	}
+
+	/**
+	 * 空Cache, 直接加载
+	 *
 	 * @author KimShen
 	 *
 	 */
 	private class EmptyCache implements Cache {
 
 		@Override
-		public Object get() {
-			return null;
-		}
-
-		@Override
-		public Object set(Object response) {
-			return null;
-		}
-
-		@Override
-		public boolean expired() {
-			return true;
+		public Object get(Request request, Method method, Invoker invoker) throws Throwable {
+			return invoker.invoke(request, method);
 		}
 
 		@Override
@@ -109,62 +164,199 @@ public class DefaultContext implements Imported, CacheContext, CacheExpired {
 	}
 
 	/**
+	 * LRU + TTL, 相同Key并发加载合并(Single Flight)
+	 *
 	 * @author KimShen
 	 *
 	 */
 	private class DefaultCache implements Cache {
 
-		private final AtomicLong count = new AtomicLong();
-
-		private final Service service;
+		private final ConcurrentMap<Key, Flight> flights = new ConcurrentHashMap<Key, Flight>();
 
-		private final String method;
+		private final Map<Key, Entry> entries;
 
-		private final long max;
+		private final long ttl;
 
-		volatile private Object response;
+		/**
+		 * 单条缓存最大读取次数
+		 */
+		private final long times;
 
-		public DefaultCache(Service service, String method, long max) {
+		private DefaultCache(final int max, long ttl, long times) {
 			super();
-			this.max = max;
-			this.method = method;
-			this.service = service;
-			// 强制首次超时
-			this.invalid();
+			this.ttl = ttl;
+			this.times = times;
+			// Access Order
+			this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+					if (this.size() > max) {
+						DefaultContext.this.eviction.incrementAndGet();
+						return true;
+					}
+					return false;
+				}
+			};
 		}
 
 		@Override
-		public Object get() {
-			// 减少已用次数
-			this.count.getAndDecrement();
-			return this.response;
+		public Object get(Request request, Method method, Invoker invoker) throws Throwable {
+			Key key = new Key(request.types(), DefaultContext.this.args(request));
+			Entry entry = this.entry(key);
+			if (entry != null) {
+				DefaultContext.this.hit.incrementAndGet();
+				return entry.response;
+			}
+			DefaultContext.this.miss.incrementAndGet();
+			Flight flight = new Flight();
+			Flight loading = this.flights.putIfAbsent(key, flight);
+			// 已有相同Key正在加载则等待其结果
+			if (loading != null) {
+				DefaultContext.this.coalesced.incrementAndGet();
+				return loading.await();
+			}
+			try {
+				Object response = invoker.invoke(request, method);
+				// 先放入缓存再移除加载, 保证后续请求命中
+				this.put(key, response);
+				return flight.complete(response, null);
+			} catch (Throwable throwable) {
+				flight.complete(null, throwable);
+				throw throwable;
+			} finally {
+				this.flights.remove(key, flight);
+			}
 		}
 
-		@Override
-		public Object set(Object response) {
-			DefaultContext.LOGGER.info("Reset cache for: " + this.service + " [" + this.method + "] (Warning: ignore override method)");
-			// 重置计数
-			this.count.set(this.max);
-			return this.response = response;
+		/**
+		 * 获取未过期缓存
+		 *
+		 * @param key
+		 * @return
+		 */
+		private Entry entry(Key key) {
+			synchronized (this.entries) {
+				Entry entry = this.entries.get(key);
+				if (entry == null) {
+					return null;
+				}
+				// 超时或读取次数耗尽
+				if (entry.deadline < System.currentTimeMillis() || entry.times-- <= 0) {
+					this.entries.remove(key);
+					DefaultContext.this.expired.incrementAndGet();
+					return null;
+				}
+				return entry;
+			}
 		}
 
-		@Override
-		public boolean expired() {
-			// 已用次数小于等于0表示超时
-			return this.count.get() <= 0;
+		private void put(Key key, Object response) {
+			synchronized (this.entries) {
+				this.entries.put(key, new Entry(response, this.ttl > 0 ? System.currentTimeMillis() + this.ttl : Long.MAX_VALUE, this.times));
+			}
 		}
 
 		@Override
 		public boolean invalid() {
-			// 指定为最小值, 强制下次调用时过期
-			this.count.set(Long.MIN_VALUE);
+			synchronized (this.entries) {
+				this.entries.clear();
+			}
 			return true;
 		}
+
+		public String toString() {
+			return "[ttl=" + this.ttl + "][times=" + this.times + "]";
+		}
+	}
+
+	private static class Entry {
+
+		private final Object response;
+
+		private final long deadline;
+
+		/**
+		 * 剩余读取次数, 仅锁内访问
+		 */
+		private long times;
+
+		private Entry(Object response, long deadline, long times) {
+			super();
+			this.response = response;
+			this.deadline = deadline;
+			this.times = times;
+		}
+	}
+
+	/**
+	 * 加载中的请求
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private static class Flight {
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		private Throwable throwable;
+
+		private Object response;
+
+		public Object complete(Object response, Throwable throwable) {
+			this.response = response;
+			this.throwable = throwable;
+			this.latch.countDown();
+			return response;
+		}
+
+		public Object await() throws Throwable {
+			this.latch.await();
+			if (this.throwable != null) {
+				throw this.throwable;
+			}
+			return this.response;
+		}
+	}
+
+	/**
+	 * 参数类型 + 参数序列化
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private static class Key {
+
+		private final Class<?>[] types;
+
+		private final byte[] args;
+
+		private final int hash;
+
+		private Key(Class<?>[] types, byte[] args) {
+			super();
+			this.args = args;
+			this.types = types;
+			this.hash = Arrays.hashCode(types) * 31 + Arrays.hashCode(args);
+		}
+
+		public int hashCode() {
+			return this.hash;
+		}
+
+		public boolean equals(Object ob) {
+			if (!(ob instanceof Key)) {
+				return false;
+			}
+			Key key = Key.class.cast(ob);
+			return this.hash == key.hash && Arrays.equals(this.args, key.args) && Arrays.equals(this.types, key.types);
+		}
 	}
 
 	/**
 	 * 相对于Servce-method的缓存集合
-	 * 
+	 *
 	 * @author KimShen
 	 *
 	 */
@@ -176,36 +368,56 @@ public class DefaultContext implements Imported, CacheContext, CacheExpired {
 		private final Map<String, Cache> caches = new HashMap<String, Cache>();
 
 		/**
-		 * 解析配置
-		 * 
+		 * 解析配置及注解
+		 *
 		 * @param config
-		 * @throws Exception 
+		 * @throws Exception
 		 */
 		private Caches(Service service, String config) throws Exception {
+			Map<String, String> configs = new HashMap<String, String>();
 			// Pattern [test1,1][test2,2]
 			Matcher matcher = Pattern.compile("(\\[(.*?),(.*?)\\])").matcher(config);
-			Class<?> clazz = Class.forName(service.service());
 			while (matcher.find()) {
-				String method = matcher.group(2);
-				String max = matcher.group(3);
-				try {
-					Method actual = clazz.getMethod(method, new Class<?>[] {});
-					if (!actual.getReturnType().equals(void.class)) {
-						DefaultContext.LOGGER.info("Prepare cache: [method=" + method + "][max=" + max + "]");
-						// 如果为空则表示为最大值
-						this.caches.put(method, new DefaultCache(service, method, StringUtils.isEmpty(max) ? Long.MAX_VALUE : Long.valueOf(max)));
-					} else {
-						DefaultContext.LOGGER.warn("Method " + method + " can not return void");
-					}
-				} catch (NoSuchMethodException e) {
-					DefaultContext.LOGGER.warn("Service " + service + " can not found method: public * " + method + "()");
+				configs.put(matcher.group(2), matcher.group(3));
+			}
+			for (Method method : Service.clazz(service).getMethods()) {
+				Cached cached = method.getAnnotation(Cached.class);
+				if (cached == null && !configs.containsKey(method.getName())) {
+					continue;
+				}
+				if (method.getReturnType().equals(void.class)) {
+					DefaultContext.LOGGER.warn("Method " + method.getName() + " can not return void");
+					continue;
+				}
+				// 重载方法共享缓存
+				if (!this.caches.containsKey(method.getName())) {
+					this.caches.put(method.getName(), this.cache(service, method.getName(), cached, configs.get(method.getName())));
 				}
 			}
 		}
 
+		/**
+		 * TTL/Max: 方法级配置 -> 注解 -> 服务级配置 -> 默认. 读取次数仅来自[method,N]
+		 *
+		 * @param service
+		 * @param method
+		 * @param cached
+		 * @param times 方法级配置([method,N]), 单条缓存最大读取次数
+		 * @return
+		 */
+		private Cache cache(Service service, String method, Cached cached, String times) {
+			long ttl4service = cached != null && cached.ttl() != 0 ? cached.ttl() : DefaultContext.this.profile.get(service, DefaultContext.TTL_KEY, cached != null ? DefaultContext.TTL_DEF : DefaultContext.TTL_COUNTED_DEF);
+			long ttl4method = DefaultContext.this.profile.get(service, DefaultContext.TTL_KEY + "." + method, ttl4service);
+			long times4method = StringUtils.isEmpty(times) || StringUtils.isEmpty(times.trim()) ? Long.MAX_VALUE : Long.valueOf(times.trim());
+			int max4service = cached != null && cached.max() != 0 ? cached.max() : DefaultContext.this.profile.get(service, DefaultContext.MAX_KEY, DefaultContext.MAX_DEF);
+			int max4method = DefaultContext.this.profile.get(service, DefaultContext.MAX_KEY + "." + method, max4service);
+			DefaultContext.LOGGER.info("Prepare cache: [service=" + service + "][method=" + method + "][ttl=" + ttl4method + "][max=" + max4method + "][times=" + times4method + "]");
+			return new DefaultCache(max4method, ttl4method, times4method);
+		}
+
 		/**
 		 * 获取指定缓存
-		 * 
+		 *
 		 * @param method
 		 * @return 如果指定方法没有开启缓存则返回EmptyCache
 		 */
@@ -16,12 +16,13 @@ public interface ChannelContext {
 	public ChannelInvoker get(Host host);
 
 	/**
-	 * 删除指定Host的ChannelInvoker
+	 * 删除指定Host的指定ChannelInvoker(仅删除该通道, 保留同Host其他通道)
 	 * 
 	 * @param host
-	 * @return
+	 * @param invoker
+	 * @return 是否删除
 	 */
-	public ChannelInvoker del(Host host);
+	public boolean del(Host host, ChannelInvoker invoker);
 
 	/**
 	 * 注册指定Host的ChannelInvoker
@@ -39,4 +40,12 @@ public interface ChannelContext {
 	 * @return
 	 */
 	public boolean contain(Host host);
+
+	/**
+	 * 指定Host已注册的ChannelInvoker数量
+	 * 
+	 * @param host
+	 * @return
+	 */
+	public int count(Host host);
 }
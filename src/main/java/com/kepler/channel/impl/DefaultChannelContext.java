@@ -1,7 +1,9 @@
 package com.kepler.channel.impl;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.kepler.KeplerRoutingException;
 import com.kepler.channel.ChannelContext;
@@ -9,13 +11,13 @@ import com.kepler.channel.ChannelInvoker;
 import com.kepler.host.Host;
 
 /**
- * Host - 通道映射
+ * Host - 通道映射, 1个Host允许映射多个通道(Stripe)并轮询使用
  * 
  * @author kim 2015年7月9日
  */
 public class DefaultChannelContext implements ChannelContext {
 
-	private final Map<Host, ChannelInvoker> channels = new HashMap<Host, ChannelInvoker>();
+	private final Map<Host, Stripes> channels = new ConcurrentHashMap<Host, Stripes>();
 
 	/**
 	 * 指定ChannelInvoker禁止为Null(必须存在)
@@ -35,25 +37,40 @@ public class DefaultChannelContext implements ChannelContext {
 	 * For Spring
 	 */
 	public void destroy() {
-		for (ChannelInvoker invoker : this.channels.values()) {
-			// 释放所有ChannelInvoker资源
-			invoker.releaseAtOnce();
+		for (Stripes stripes : this.channels.values()) {
+			for (ChannelInvoker invoker : stripes.invokers) {
+				// 释放所有ChannelInvoker资源
+				invoker.releaseAtOnce();
+			}
 		}
 	}
 
 	public ChannelInvoker get(Host host) {
-		return this.valid(host, this.channels.get(host));
+		Stripes stripes = this.channels.get(host);
+		return this.valid(host, stripes != null ? stripes.next() : null);
 	}
 
-	public ChannelInvoker del(Host host) {
+	public boolean del(Host host, ChannelInvoker invoker) {
 		synchronized (this) {
-			return this.channels.remove(host);
+			Stripes stripes = this.channels.get(host);
+			// Guard case, 不存在
+			if (stripes == null || !stripes.contain(invoker)) {
+				return false;
+			}
+			Stripes remain = stripes.remove(invoker);
+			if (remain != null) {
+				this.channels.put(host, remain);
+			} else {
+				this.channels.remove(host);
+			}
+			return true;
 		}
 	}
 
 	public ChannelInvoker put(Host host, ChannelInvoker invoker) {
 		synchronized (this) {
-			this.channels.put(host, invoker);
+			Stripes stripes = this.channels.get(host);
+			this.channels.put(host, stripes != null ? stripes.add(invoker) : new Stripes(new ChannelInvoker[] { invoker }));
 		}
 		return invoker;
 	}
@@ -64,4 +81,76 @@ public class DefaultChannelContext implements ChannelContext {
 			return this.channels.containsKey(host);
 		}
 	}
+
+	public int count(Host host) {
+		synchronized (this) {
+			Stripes stripes = this.channels.get(host);
+			return stripes != null ? stripes.invokers.length : 0;
+		}
+	}
+
+	/**
+	 * 通道集合(不可变), 变更时替换
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class Stripes {
+
+		private final AtomicInteger next = new AtomicInteger();
+
+		private final ChannelInvoker[] invokers;
+
+		private Stripes(ChannelInvoker[] invokers) {
+			super();
+			this.invokers = invokers;
+		}
+
+		/**
+		 * 轮询
+		 * 
+		 * @return
+		 */
+		public ChannelInvoker next() {
+			// Guard case, 单通道
+			if (this.invokers.length == 1) {
+				return this.invokers[0];
+			}
+			return this.invokers[(this.next.getAndIncrement() & Integer.MAX_VALUE) % this.invokers.length];
+		}
+
+		public boolean contain(ChannelInvoker invoker) {
+			for (ChannelInvoker each : this.invokers) {
+				if (each == invoker) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public Stripes add(ChannelInvoker invoker) {
+			ChannelInvoker[] invokers = Arrays.copyOf(this.invokers, this.invokers.length + 1);
+			invokers[this.invokers.length] = invoker;
+			return new Stripes(invokers);
+		}
+
+		/**
+		 * @param invoker
+		 * @return 移除后剩余通道, 如果没有剩余则返回Null
+		 */
+		public Stripes remove(ChannelInvoker invoker) {
+			// Guard case, 仅剩当前通道
+			if (this.invokers.length == 1) {
+				return null;
+			}
+			ChannelInvoker[] invokers = new ChannelInvoker[this.invokers.length - 1];
+			int index = 0;
+			for (ChannelInvoker each : this.invokers) {
+				if (each != invoker) {
+					invokers[index++] = each;
+				}
+			}
+			return new Stripes(invokers);
+		}
+	}
 }
@@ -2951,6 +2951,16 @@ public class Hessian2Input
   public void free()
   {
     reset();
+
+    // discard any unread bytes so the instance can be re-initialized
+    _offset = 0;
+    _length = 0;
+    _chunkLength = 0;
+    _isLastChunk = false;
+    _method = null;
+    _replyFault = null;
+    _sbuf.setLength(0);
+    _is = null;
   }
 
   @Override
@@ -2,6 +2,7 @@ package com.kepler.config;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.kepler.org.apache.commons.lang.StringUtils;
 import com.kepler.service.Service;
@@ -20,6 +21,11 @@ public class Profile {
 
 	private final Map<Service, String> profiles = new HashMap<Service, String>();
 
+	/**
+	 * 服务配置快照, 配置版本变化时整体替换
+	 */
+	private final Map<Service, Snapshot> snapshots = new ConcurrentHashMap<Service, Snapshot>();
+
 	/**
 	 * 如果没有指定偏好则使用全类名作为偏好
 	 * 
@@ -30,10 +36,131 @@ public class Profile {
 	public Profile add(Service service, String profile) {
 		// 如果Profile为空(Null | "")则使用全类名
 		this.profiles.put(service, StringUtils.isEmpty(profile) ? service.service().toLowerCase() : profile);
+		// 偏好变化, 废弃快照
+		this.snapshots.remove(service);
 		return this;
 	}
 
 	public String profile(Service service) {
 		return Profile.ENABLED ? this.profiles.get(service) : null;
 	}
+
+	/**
+	 * 获取当前版本快照, 如果不存在或版本已过期则重建
+	 * 
+	 * @param service
+	 * @return
+	 */
+	private Snapshot snapshot(Service service) {
+		// 先获取版本再解析配置, 保证快照不会比版本旧
+		long version = PropertiesUtils.version();
+		Snapshot snapshot = this.snapshots.get(service);
+		if (snapshot == null || snapshot.version != version) {
+			this.snapshots.put(service, (snapshot = new Snapshot(this.profile(service), version)));
+		}
+		return snapshot;
+	}
+
+	/**
+	 * 等价于PropertiesUtils.profile(profile(service), key, def), 解析结果缓存于快照
+	 * 
+	 * @param service
+	 * @param key
+	 * @param def
+	 * @return
+	 */
+	public String get(Service service, String key, String def) {
+		String value = this.snapshot(service).value(key).value;
+		return value != null ? value : def;
+	}
+
+	public boolean get(Service service, String key, boolean def) {
+		Value value = this.snapshot(service).value(key);
+		if (value.value == null) {
+			return def;
+		}
+		Object typed = value.typed;
+		if (!(typed instanceof Boolean)) {
+			value.typed = typed = Boolean.valueOf(value.value);
+		}
+		return Boolean.class.cast(typed);
+	}
+
+	public int get(Service service, String key, int def) {
+		Value value = this.snapshot(service).value(key);
+		if (value.value == null) {
+			return def;
+		}
+		Object typed = value.typed;
+		if (!(typed instanceof Integer)) {
+			value.typed = typed = Integer.valueOf(value.value);
+		}
+		return Integer.class.cast(typed);
+	}
+
+	public long get(Service service, String key, long def) {
+		Value value = this.snapshot(service).value(key);
+		if (value.value == null) {
+			return def;
+		}
+		Object typed = value.typed;
+		if (!(typed instanceof Long)) {
+			value.typed = typed = Long.valueOf(value.value);
+		}
+		return Long.class.cast(typed);
+	}
+
+	/**
+	 * 指定服务在指定配置版本下的配置
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private static class Snapshot {
+
+		private final Map<String, Value> values = new ConcurrentHashMap<String, Value>();
+
+		private final String profile;
+
+		private final long version;
+
+		private Snapshot(String profile, long version) {
+			this.profile = profile;
+			this.version = version;
+		}
+
+		/**
+		 * 首次访问时解析
+		 * 
+		 * @param key
+		 * @return
+		 */
+		public Value value(String key) {
+			Value value = this.values.get(key);
+			if (value == null) {
+				this.values.put(key, (value = new Value(PropertiesUtils.profile(this.profile, key, null))));
+			}
+			return value;
+		}
+	}
+
+	/**
+	 * 原始值及类型化缓存
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private static class Value {
+
+		private final String value;
+
+		/**
+		 * 类型化结果(竞争时重复解析无副作用)
+		 */
+		volatile private Object typed;
+
+		private Value(String value) {
+			this.value = value;
+		}
+	}
 }
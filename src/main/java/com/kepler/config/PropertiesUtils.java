@@ -63,6 +63,11 @@ public class PropertiesUtils {
 	 */
 	volatile private static Map<String, String> PROPERTIES;
 
+	/**
+	 * 配置版本, 每次更新配置后递增
+	 */
+	volatile private static long VERSION = 0;
+
 	/**
 	 * 标记位, 是否已初始
 	 */
@@ -328,6 +333,15 @@ public class PropertiesUtils {
 		return value != null ? Boolean.valueOf(value) : def;
 	}
 
+	/**
+	 * 当前配置版本
+	 * 
+	 * @return
+	 */
+	public static long version() {
+		return PropertiesUtils.VERSION;
+	}
+
 	/**
 	 * 获取当前配置快照
 	 * @return
@@ -343,11 +357,12 @@ public class PropertiesUtils {
 	 * 
 	 * @param properties
 	 */
-	public static void properties(Map<String, String> properties) {
+	public static synchronized void properties(Map<String, String> properties) {
 		Map<String, String> replace = new HashMap<String, String>(PropertiesUtils.PROPERTIES);
 		replace.putAll(new FormatedMap(properties));
-		// 替换
+		// 替换(先替换再递增版本)
 		PropertiesUtils.PROPERTIES = replace;
+		PropertiesUtils.VERSION++;
 		// 备份
 		PropertiesUtils.backup(PropertiesUtils.FILE_CONFIG, PropertiesUtils.FILE_VERSION, PropertiesUtils.FILE_DYNAMIC);
 		// 持久化
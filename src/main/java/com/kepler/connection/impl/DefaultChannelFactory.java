@@ -5,6 +5,8 @@ import com.kepler.KeplerLocalException;
 import io.netty.bootstrap.ChannelFactory;
 import io.netty.channel.Channel;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
@@ -17,7 +19,11 @@ public class DefaultChannelFactory<T extends Channel> implements ChannelFactory<
 	public static final ChannelFactory<ServerChannel> INSTANCE_SERVER = new DefaultChannelFactory<ServerChannel>(NioServerSocketChannel.class);
 
 	public static final ChannelFactory<SocketChannel> INSTANCE_CLIENT = new DefaultChannelFactory<SocketChannel>(NioSocketChannel.class);
-	
+
+	public static final ChannelFactory<ServerChannel> INSTANCE_SERVER_EPOLL = new DefaultChannelFactory<ServerChannel>(EpollServerSocketChannel.class);
+
+	public static final ChannelFactory<SocketChannel> INSTANCE_CLIENT_EPOLL = new DefaultChannelFactory<SocketChannel>(EpollSocketChannel.class);
+
 	private final Class<? extends T> factory;
 
 	public DefaultChannelFactory(Class<? extends T> factory) {
@@ -5,21 +5,24 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executor;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.kepler.KeplerException;
 import com.kepler.KeplerNetworkException;
-import com.kepler.ack.AckTimeOut;
-import com.kepler.ack.Acks;
 import com.kepler.ack.impl.AckFuture;
+import com.kepler.ack.impl.AckTimer;
+import com.kepler.ack.impl.DefaultAcks;
 import com.kepler.admin.transfer.Collector;
+import com.kepler.breaker.Breakers;
 import com.kepler.channel.ChannelContext;
 import com.kepler.channel.ChannelInvoker;
 import com.kepler.config.Profile;
@@ -31,10 +34,15 @@ import com.kepler.connection.codec.Decoder;
 import com.kepler.connection.codec.Encoder;
 import com.kepler.generic.reflect.analyse.FieldsAnalyser;
 import com.kepler.host.Host;
+import com.kepler.host.Hosts;
 import com.kepler.host.HostsContext;
+import com.kepler.limit.Limits;
 import com.kepler.protocol.Request;
 import com.kepler.protocol.Response;
+import com.kepler.router.routing.Latencies;
 import com.kepler.service.Quiet;
+import com.kepler.service.Service;
+import com.kepler.thread.WorkerExecutor;
 import com.kepler.token.TokenContext;
 import com.kepler.trace.Trace;
 
@@ -47,7 +55,8 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
@@ -84,6 +93,13 @@ public class DefaultConnect implements Connect {
 
 	private static final int BUFFER_RECV = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".buffer_recv", Integer.MAX_VALUE);
 
+	/**
+	 * 每个Host建立的连接数量(可通过Profile指定服务, 取该Host所有服务中的最大值)
+	 */
+	public static final String CONNECTIONS_KEY = DefaultConnect.class.getName().toLowerCase() + ".connections";
+
+	private static final int CONNECTIONS_DEF = Math.max(PropertiesUtils.get(DefaultConnect.CONNECTIONS_KEY, 1), 1);
+
 	/**
 	 * 监听待重连线程数量
 	 */
@@ -94,6 +110,21 @@ public class DefaultConnect implements Connect {
 	 */
 	private static final boolean ESTABLISH_LOOP = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".establish_loop", true);
 
+	/**
+	 * 传输层(epoll/nio), Epoll不可用时使用NIO
+	 */
+	private static final DefaultTransport TRANSPORT = DefaultTransport.select(PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".transport", DefaultTransport.NAME_EPOLL));
+
+	/**
+	 * Epoll, 是否开启TCP_QUICKACK
+	 */
+	private static final boolean EPOLL_QUICKACK = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".epoll_quickack", false);
+
+	/**
+	 * Epoll, 触发模式(edge_triggered/level_triggered)
+	 */
+	private static final String EPOLL_MODE = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".epoll_mode", EpollMode.EDGE_TRIGGERED.name());
+
 	/**
 	 * 是否使用共享Shared EventLoopGroup
 	 */
@@ -118,6 +149,26 @@ public class DefaultConnect implements Connect {
 
 	private static final int WRITE_WATERWATER_HIGH = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".write_water_high", 65536);
 
+	/**
+	 * 是否开启批量写入(合并Flush)
+	 */
+	private static final boolean WRITE_BATCH = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".write_batch", true);
+
+	/**
+	 * 累计N个请求后Flush
+	 */
+	private static final int WRITE_BATCH_COUNT = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".write_batch_count", 64);
+
+	/**
+	 * 累计N字节后Flush
+	 */
+	private static final int WRITE_BATCH_BYTES = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".write_batch_bytes", 65536);
+
+	/**
+	 * 单次EventLoop任务最多写入N个请求, 超过则让出EventLoop并重新调度
+	 */
+	private static final int WRITE_BATCH_MAX = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".write_batch_max", 1024);
+
 	private static final boolean IDLE_CLOSE = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".idle_close", true);
 
 	private static final short IDLE_ALL = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".idle_all", Short.MAX_VALUE);
@@ -126,14 +177,14 @@ public class DefaultConnect implements Connect {
 
 	private static final short IDLE_WRITE = PropertiesUtils.get(DefaultConnect.class.getName().toLowerCase() + ".idle_write", Short.MAX_VALUE);
 
-	private static final AttributeKey<AcksImpl> ACKS = AttributeKey.newInstance("ACKS");
+	private static final AttributeKey<DefaultAcks> ACKS = AttributeKey.newInstance("ACKS");
 
 	private static final Log LOGGER = LogFactory.getLog(DefaultConnect.class);
 
 	/**
 	 * 共享EventLoopGroup, 如果没有开启则为Null
 	 */
-	private final EventLoopGroup shared = DefaultConnect.EVENTLOOP_SHARED ? new NioEventLoopGroup(DefaultConnect.EVENTLOOP_THREAD) : null;
+	private final EventLoopGroup shared = DefaultConnect.EVENTLOOP_SHARED ? DefaultConnect.TRANSPORT.eventloop(DefaultConnect.EVENTLOOP_THREAD) : null;
 
 	private final InitializerFactory inits = new InitializerFactory();
 
@@ -154,12 +205,18 @@ public class DefaultConnect implements Connect {
 
 	private final Connects connects;
 
-	private final AckTimeOut timeout;
+	private final Breakers breakers;
 
 	private final TokenContext token;
 
+	private final AckTimer timer;
+
 	private final Collector collector;
 
+	private final Latencies latencies;
+
+	private final Limits limits;
+
 	private final HostsContext context;
 
 	private final ChannelContext channels;
@@ -168,9 +225,14 @@ public class DefaultConnect implements Connect {
 
 	private final ThreadPoolExecutor threads;
 
+	/**
+	 * 响应解码
+	 */
+	private final WorkerExecutor workers;
+
 	volatile private boolean shutdown;
 
-	public DefaultConnect(Host local, Quiet quiet, Encoder encoder, Decoder decoder, Profile profiles, Connects connects, TokenContext token, AckTimeOut timeout, HostsContext context, ChannelContext channels, Collector collector, FieldsAnalyser analyser, ThreadPoolExecutor threads) {
+	public DefaultConnect(Host local, Quiet quiet, Encoder encoder, Decoder decoder, Profile profiles, Connects connects, TokenContext token, Breakers breakers, AckTimer timer, HostsContext context, ChannelContext channels, Collector collector, Latencies latencies, Limits limits, FieldsAnalyser analyser, ThreadPoolExecutor threads, WorkerExecutor workers) {
 		super();
 		this.local = local;
 		this.token = token;
@@ -178,13 +240,17 @@ public class DefaultConnect implements Connect {
 		this.encoder = encoder;
 		this.decoder = decoder;
 		this.threads = threads;
+		this.workers = workers;
 		this.context = context;
-		this.timeout = timeout;
+		this.breakers = breakers;
+		this.timer = timer;
 		this.analyser = analyser;
 		this.connects = connects;
 		this.channels = channels;
 		this.profiles = profiles;
 		this.collector = collector;
+		this.latencies = latencies;
+		this.limits = limits;
 	}
 
 	public void init() {
@@ -229,26 +295,60 @@ public class DefaultConnect implements Connect {
 	}
 
 	/**
-	 * 释放通道(异步), 并将主机加入Ban名单后重连
+	 * 释放通道(异步). 如果该主机已无可用通道则加入Ban名单后重连, 否则仅对该通道重连
 	 * 
-	 * @param host
+	 * @param invoker
 	 * @throws Exception
 	 */
-	private void release(Host host) throws Exception {
-		// 如果多个请求(Request)同时出现故障并关闭导致再次返回Invoker为Null
-		ChannelInvoker invoker = this.channels.del(host);
-		if (invoker != null) {
+	private void release(ChannelInvoker invoker) throws Exception {
+		Host host = invoker.remote();
+		// 如果多个请求(Request)同时出现故障并关闭导致再次删除失败
+		if (this.channels.del(host, invoker)) {
 			invoker.release();
 		}
-		// 加入Ban名单(Close并不意味着连接永远移除.只要ZK中未注销, 对应Host将再次尝试重连)
-		this.context.ban(host);
+		this.reconnect(host);
+	}
+
+	/**
+	 * 尚存在其他可用通道则仅重连, 否则Ban
+	 * 
+	 * @param host
+	 */
+	private void reconnect(Host host) {
+		if (this.channels.contain(host)) {
+			this.connects.put(host);
+		} else {
+			// 加入Ban名单(Close并不意味着连接永远移除.只要ZK中未注销, 对应Host将再次尝试重连)
+			this.context.ban(host);
+		}
+	}
+
+	/**
+	 * 指定Host需要建立的连接数量
+	 * 
+	 * @param host
+	 * @return
+	 */
+	private int connections(Host host) {
+		int connections = DefaultConnect.CONNECTIONS_DEF;
+		// 不可变快照, 无需加锁
+		for (Map.Entry<Service, Hosts> each : this.context.hosts().entrySet()) {
+			if (each.getValue().contain(host)) {
+				connections = Math.max(connections, this.profiles.get(each.getKey(), DefaultConnect.CONNECTIONS_KEY, DefaultConnect.CONNECTIONS_DEF));
+			}
+		}
+		return connections;
 	}
 
 	public void connect(Host host) throws Exception {
-		// IP锁. 1个Host仅允许建立1个连接
+		// IP锁. 同一Host的连接依次建立
 		synchronized (host.host().intern()) {
-			if (!this.channels.contain(host)) {
-				this.connect(new InvokerHandler(new Bootstrap(), this.local, host, this.channels));
+			// 需补充的连接数量
+			int required = this.connections(host) - this.channels.count(host);
+			if (required > 0) {
+				for (int index = 0; index < required; index++) {
+					this.connect(new InvokerHandler(new Bootstrap(), this.local, host, this.channels));
+				}
 			} else {
 				DefaultConnect.LOGGER.warn("Host: " + host + " already connected ...");
 			}
@@ -263,19 +363,33 @@ public class DefaultConnect implements Connect {
 	 * @return
 	 */
 	private EventLoopGroup eventloop() {
-		return DefaultConnect.EVENTLOOP_SHARED ? this.shared : new NioEventLoopGroup(DefaultConnect.EVENTLOOP_THREAD);
+		return DefaultConnect.EVENTLOOP_SHARED ? this.shared : DefaultConnect.TRANSPORT.eventloop(DefaultConnect.EVENTLOOP_THREAD);
+	}
+
+	/**
+	 * Epoll相关配置
+	 * 
+	 * @param bootstrap
+	 * @return
+	 */
+	private Bootstrap epoll4config(Bootstrap bootstrap) {
+		if (DefaultConnect.TRANSPORT.epoll()) {
+			bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.valueOf(DefaultConnect.EPOLL_MODE.toUpperCase()));
+			bootstrap.option(EpollChannelOption.TCP_QUICKACK, DefaultConnect.EPOLL_QUICKACK);
+		}
+		return bootstrap;
 	}
 
 	private void connect(InvokerHandler invoker) throws Exception {
 		try {
 			// 是否为回路IP
 			SocketAddress remote = new InetSocketAddress(invoker.remote().loop(this.local) && DefaultConnect.ESTABLISH_LOOP ? Host.LOOP : invoker.remote().host(), invoker.remote().port());
-			invoker.bootstrap().group(this.eventloop()).option(ChannelOption.CONNECT_TIMEOUT_MILLIS, DefaultConnect.TIMEOUT).channelFactory(DefaultChannelFactory.INSTANCE_CLIENT).handler(DefaultConnect.this.inits.factory(invoker)).remoteAddress(remote).connect().sync();
+			this.epoll4config(invoker.bootstrap()).group(this.eventloop()).option(ChannelOption.CONNECT_TIMEOUT_MILLIS, DefaultConnect.TIMEOUT).channelFactory(DefaultConnect.TRANSPORT.client()).handler(DefaultConnect.this.inits.factory(invoker)).remoteAddress(remote).connect().sync();
 			// 连接成功, 加入通道. 异常则跳过
 		} catch (Throwable e) {
 			DefaultConnect.LOGGER.info("Connect " + invoker.remote().address() + "[sid=" + invoker.remote().sid() + "] failed ...", e);
-			// 关闭并尝试重连
-			this.context.ban(invoker.remote());
+			// 关闭并尝试重连(仍存在其他可用通道则不Ban)
+			this.reconnect(invoker.remote());
 			invoker.releaseAtOnce();
 			throw e;
 		}
@@ -292,6 +406,11 @@ public class DefaultConnect implements Connect {
 
 		volatile private ChannelHandlerContext ctx;
 
+		/**
+		 * 批量写入队列(开启WRITE_BATCH时有效)
+		 */
+		volatile private WriteBatch batch;
+
 		private final ChannelContext channels;
 
 		private InvokerHandler(Bootstrap bootstrap, Host local, Host remote, ChannelContext channels) {
@@ -364,7 +483,8 @@ public class DefaultConnect implements Connect {
 		public void channelActive(ChannelHandlerContext ctx) throws Exception {
 			DefaultConnect.LOGGER.info("Connect active (" + this.local + " to " + this.remote + ") ...");
 			// 初始化赋值
-			(this.ctx = ctx).channel().attr(DefaultConnect.ACKS).set(new AcksImpl());
+			(this.ctx = ctx).channel().attr(DefaultConnect.ACKS).set(new DefaultAcks());
+			this.batch = DefaultConnect.WRITE_BATCH ? new WriteBatch(ctx) : null;
 			this.water4config();
 			this.channels.put(this.remote(), this);
 			this.ctx.fireChannelActive();
@@ -372,7 +492,7 @@ public class DefaultConnect implements Connect {
 
 		public void channelInactive(ChannelHandlerContext ctx) throws Exception {
 			DefaultConnect.LOGGER.info("Connect inactive (" + this.local + " to " + this.remote + ") ...");
-			DefaultConnect.this.release(this.remote);
+			DefaultConnect.this.release(this);
 			ctx.fireChannelInactive();
 		}
 
@@ -397,11 +517,25 @@ public class DefaultConnect implements Connect {
 
 		public Object invoke(Request request, Method method) throws Throwable {
 			// 增加Token Header
-			AckFuture future = new AckFuture(DefaultConnect.this.analyser, this, DefaultConnect.this.timeout, DefaultConnect.this.collector, this.ctx.channel().eventLoop(), method, DefaultConnect.this.token.set(request, this), DefaultConnect.this.profiles, DefaultConnect.this.quiet);
-			ByteBuf buffer = DefaultConnect.this.encoder.encode(request.service(), request.method(), future.request());
-			this.water4check();
-			if (this.ctx.channel().eventLoop().inEventLoop()) {
+			AckFuture future = new AckFuture(DefaultConnect.this.analyser, this, DefaultConnect.this.breakers, DefaultConnect.this.timer, DefaultConnect.this.collector, DefaultConnect.this.latencies, DefaultConnect.this.limits, method, DefaultConnect.this.token.set(request, this), DefaultConnect.this.profiles, DefaultConnect.this.quiet);
+			ByteBuf buffer = null;
+			try {
+				buffer = DefaultConnect.this.encoder.encode(request.service(), request.method(), future.request());
+				this.water4check();
+				// 写入前注册ACK(线程安全, 无需切换至EventLoop)
 				this.ctx.channel().attr(DefaultConnect.ACKS).get().put(future);
+			} catch (Throwable throwable) {
+				// 未发送则释放许可及Buffer
+				future.abandon();
+				if (buffer != null) {
+					buffer.release();
+				}
+				throw throwable;
+			}
+			if (DefaultConnect.WRITE_BATCH) {
+				// 批量写入, EventLoop线程与业务线程均进入队列以保证请求顺序
+				this.batch.write(new InvokeRunnable(this.ctx, future, buffer));
+			} else if (this.ctx.channel().eventLoop().inEventLoop()) {
 				this.ctx.writeAndFlush(buffer).addListener(ExceptionListener.listener(this.ctx));
 			} else {
 				this.ctx.channel().eventLoop().execute(new InvokeRunnable(this.ctx, future, buffer));
@@ -413,12 +547,12 @@ public class DefaultConnect implements Connect {
 		/**
 		 * 回调, 唤醒线程
 		 * 
-		 * @param executor
 		 * @param response
 		 * @param acks
 		 */
-		private void response(Executor executor, Response response, AcksImpl acks) {
-			AckFuture future = acks.get(response.ack());
+		private void response(Response response, DefaultAcks acks) {
+			// 已响应则立即移除ACK(线程安全)
+			AckFuture future = acks.remove(response.ack());
 			// 如获取不到ACK表示已超时
 			if (future != null) {
 				future.response(response);
@@ -429,13 +563,19 @@ public class DefaultConnect implements Connect {
 
 		@Override
 		public void channelRead(ChannelHandlerContext ctx, Object message) throws Exception {
-			AcksImpl acks = this.ctx.channel().attr(DefaultConnect.ACKS).get();
+			DefaultAcks acks = this.ctx.channel().attr(DefaultConnect.ACKS).get();
 			ByteBuf buffer = ByteBuf.class.cast(message);
 			if (DefaultConnect.EVENTLOOP_DECODE) {
 				// 如果在EventLoop线程执行解码则立即执行
-				this.response(ctx.channel().eventLoop(), Response.class.cast(DefaultConnect.this.decoder.decode(buffer)), acks);
+				this.response(Response.class.cast(DefaultConnect.this.decoder.decode(buffer)), acks);
 			} else {
-				DefaultConnect.this.threads.execute(new ResponseRunnable(this, ctx.channel().eventLoop(), buffer, acks));
+				try {
+					DefaultConnect.this.workers.execute(new ResponseRunnable(this, buffer, acks));
+				} catch (RejectedExecutionException exception) {
+					// 响应不可丢弃, 线程池饱和时在EventLoop解码
+					DefaultConnect.LOGGER.warn(exception.getMessage());
+					this.response(Response.class.cast(DefaultConnect.this.decoder.decode(buffer)), acks);
+				}
 			}
 		}
 	}
@@ -530,95 +670,122 @@ public class DefaultConnect implements Connect {
 			this.ctx = ctx;
 		}
 
-		@Override
-		public void run() {
+		/**
+		 * 写入(不Flush)
+		 * 
+		 * @return 写入字节数
+		 */
+		private int write() {
 			this.running = System.currentTimeMillis();
 			// 线程等待提示
 			if ((this.running - this.created) >= DefaultConnect.WAIT_WARN) {
 				DefaultConnect.LOGGER.warn("[wait-warn][time=" + (this.running - this.created) + "][trace=" + this.future.request().get(Trace.TRACE) + "]");
 			}
-			this.ctx.channel().attr(DefaultConnect.ACKS).get().put(this.future);
-			this.ctx.writeAndFlush(this.buffer).addListener(ExceptionListener.listener(this.ctx, this.future.request().get(Trace.TRACE)));
+			// 写入前获取长度, 写入后Buffer可能已释放
+			int bytes = this.buffer.readableBytes();
+			this.ctx.write(this.buffer).addListener(ExceptionListener.listener(this.ctx, this.future.request().get(Trace.TRACE)));
+			return bytes;
 		}
-	}
 
-	private class ResponseRunnable implements Runnable {
+		@Override
+		public void run() {
+			this.write();
+			this.ctx.flush();
+		}
+	}
 
-		private final InvokerHandler invoker;
+	/**
+	 * 批量写入, 合并多个请求的Flush. 每轮EventLoop任务Flush一次或达到数量/字节阈值时Flush
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class WriteBatch implements Runnable {
 
-		private final Executor executor;
+		private final Queue<InvokeRunnable> queue = new ConcurrentLinkedQueue<InvokeRunnable>();
 
-		private final ByteBuf buffer;
+		/**
+		 * 是否已提交EventLoop任务
+		 */
+		private final AtomicBoolean scheduled = new AtomicBoolean();
 
-		private final AcksImpl acks;
+		private final ChannelHandlerContext ctx;
 
-		private ResponseRunnable(InvokerHandler invoker, Executor executor, ByteBuf buffer, AcksImpl acks) {
+		private WriteBatch(ChannelHandlerContext ctx) {
 			super();
-			this.executor = executor;
-			this.invoker = invoker;
-			this.buffer = buffer;
-			this.acks = acks;
+			this.ctx = ctx;
+		}
+
+		/**
+		 * 加入队列, 如果尚未调度则提交EventLoop
+		 * 
+		 * @param invoke
+		 */
+		public void write(InvokeRunnable invoke) {
+			this.queue.offer(invoke);
+			this.schedule();
+		}
+
+		private void schedule() {
+			if (this.scheduled.compareAndSet(false, true)) {
+				this.ctx.channel().eventLoop().execute(this);
+			}
 		}
 
 		@Override
 		public void run() {
+			// 本轮已写入(全部), 未Flush数量, 未Flush字节
+			int total = 0, count = 0, bytes = 0;
 			try {
-				// 解析Response并回调
-				Response response = Response.class.cast(DefaultConnect.this.decoder.decode(this.buffer));
-				this.invoker.response(this.executor, response, this.acks);
+				InvokeRunnable invoke = null;
+				while (total < DefaultConnect.WRITE_BATCH_MAX && (invoke = this.queue.poll()) != null) {
+					bytes += invoke.write();
+					total++;
+					// 达到阈值则提前Flush
+					if (++count >= DefaultConnect.WRITE_BATCH_COUNT || bytes >= DefaultConnect.WRITE_BATCH_BYTES) {
+						this.ctx.flush();
+						count = bytes = 0;
+					}
+				}
 			} catch (Throwable e) {
 				DefaultConnect.LOGGER.error(e.getMessage(), e);
+			} finally {
+				if (count > 0) {
+					this.ctx.flush();
+				}
+				this.scheduled.set(false);
+				// 复查, 处理剩余请求或调度期间新加入的请求
+				if (!this.queue.isEmpty()) {
+					this.schedule();
+				}
 			}
 		}
 	}
 
-	private class AcksImpl implements Acks {
-
-		private final Map<Bytes, AckFuture> waitings = new HashMap<Bytes, AckFuture>();
-
-		public AckFuture put(AckFuture future) {
-			this.waitings.put(new Bytes(future.request().ack()), future);
-			return future.acks(this);
-		}
-
-		public AckFuture get(byte[] ack) {
-			return this.waitings.get(new Bytes(ack));
-		}
-
-		public AckFuture remove(byte[] ack) {
-			return this.waitings.remove(new Bytes(ack));
-		}
+	private class ResponseRunnable implements Runnable {
 
-		public String toString() {
-			return "[acks=" + this.waitings.size() + "]";
-		}
-	}
+		private final InvokerHandler invoker;
 
-	private class Bytes {
+		private final ByteBuf buffer;
 
-		private final byte[] bytes;
+		private final DefaultAcks acks;
 
-		private Bytes(byte[] bytes) {
-			this.bytes = bytes;
+		private ResponseRunnable(InvokerHandler invoker, ByteBuf buffer, DefaultAcks acks) {
+			super();
+			this.invoker = invoker;
+			this.buffer = buffer;
+			this.acks = acks;
 		}
 
 		@Override
-		public boolean equals(Object obj) {
-			// Guard case1, Null
-			if (obj == null) {
-				return false;
-			}
-			// Guard case2, 地址相等
-			if (this == obj) {
-				return true;
+		public void run() {
+			try {
+				// 解析Response并回调
+				Response response = Response.class.cast(DefaultConnect.this.decoder.decode(this.buffer));
+				this.invoker.response(response, this.acks);
+			} catch (Throwable e) {
+				DefaultConnect.LOGGER.error(e.getMessage(), e);
 			}
-			Bytes that = Bytes.class.cast(obj);
-			return Arrays.equals(this.bytes, that.bytes);
-		}
-
-		@Override
-		public int hashCode() {
-			return Arrays.hashCode(this.bytes);
 		}
 	}
-}
+}
\ No newline at end of file
@@ -1,10 +1,11 @@
 package com.kepler.connection.impl;
 
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.kepler.KeplerBusyException;
 import com.kepler.KeplerException;
 import com.kepler.KeplerTimeoutException;
 import com.kepler.ack.impl.AckFuture;
@@ -24,6 +25,7 @@ import com.kepler.quality.Quality;
 import com.kepler.queue.QueueExecutor;
 import com.kepler.queue.QueueRunnable;
 import com.kepler.service.ExportedContext;
+import com.kepler.thread.WorkerExecutor;
 import com.kepler.token.TokenContext;
 import com.kepler.trace.Trace;
 
@@ -35,7 +37,8 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
@@ -51,6 +54,26 @@ public class DefaultServer {
 
 	private static final int EVENTLOOP_CHILD = PropertiesUtils.get(DefaultServer.class.getName().toLowerCase() + ".eventloop_child", Runtime.getRuntime().availableProcessors() * 2);
 
+	/**
+	 * 传输层(epoll/nio), Epoll不可用时使用NIO
+	 */
+	private static final DefaultTransport TRANSPORT = DefaultTransport.select(PropertiesUtils.get(DefaultServer.class.getName().toLowerCase() + ".transport", DefaultTransport.NAME_EPOLL));
+
+	/**
+	 * Epoll, 是否开启TCP_QUICKACK
+	 */
+	private static final boolean EPOLL_QUICKACK = PropertiesUtils.get(DefaultServer.class.getName().toLowerCase() + ".epoll_quickack", false);
+
+	/**
+	 * Epoll, 触发模式(edge_triggered/level_triggered)
+	 */
+	private static final String EPOLL_MODE = PropertiesUtils.get(DefaultServer.class.getName().toLowerCase() + ".epoll_mode", EpollMode.EDGE_TRIGGERED.name());
+
+	/**
+	 * Epoll, TCP_DEFER_ACCEPT(秒), 0表示关闭
+	 */
+	private static final int EPOLL_DEFER_ACCEPT = PropertiesUtils.get(DefaultServer.class.getName().toLowerCase() + ".epoll_defer_accept", 0);
+
 	private static final int BUFFER_SEND = PropertiesUtils.get(DefaultServer.class.getName().toLowerCase() + ".buffer_send", Integer.MAX_VALUE);
 
 	private static final int BUFFER_RECV = PropertiesUtils.get(DefaultServer.class.getName().toLowerCase() + ".buffer_recv", Integer.MAX_VALUE);
@@ -99,7 +122,7 @@ public class DefaultServer {
 
 	private final ServerBootstrap bootstrap = new ServerBootstrap();
 
-	private final ThreadPoolExecutor threads;
+	private final WorkerExecutor workers;
 
 	private final ResponseFactories response;
 
@@ -125,13 +148,13 @@ public class DefaultServer {
 
 	private final Trace trace;
 
-	public DefaultServer(Trace trace, Reject reject, Encoder encoder, Decoder decoder, Quality quality, ServerHost local, TokenContext token, QueueExecutor queue, ExportedContext exported, ResponseFactories response, HeadersContext headers, ThreadPoolExecutor threads, RequestProcessor processor) {
+	public DefaultServer(Trace trace, Reject reject, Encoder encoder, Decoder decoder, Quality quality, ServerHost local, TokenContext token, QueueExecutor queue, ExportedContext exported, ResponseFactories response, HeadersContext headers, WorkerExecutor workers, RequestProcessor processor) {
 		super();
 		this.processor = processor;
 		this.exported = exported;
 		this.response = response;
 		this.quality = quality;
-		this.threads = threads;
+		this.workers = workers;
 		this.headers = headers;
 		this.encoder = encoder;
 		this.decoder = decoder;
@@ -149,10 +172,25 @@ public class DefaultServer {
 	 */
 	public void init() throws Exception {
 		// 服务配置(绑定端口,SO_REUSEADDR=true)
-		this.bootstrap.group(new NioEventLoopGroup(DefaultServer.EVENTLOOP_PARENT), new NioEventLoopGroup(DefaultServer.EVENTLOOP_CHILD)).channelFactory(DefaultChannelFactory.INSTANCE_SERVER).childHandler(this.inits.factory()).option(ChannelOption.SO_REUSEADDR, true).bind(DefaultServer.BINDING, this.local.port()).sync();
+		this.epoll4config().group(DefaultServer.TRANSPORT.eventloop(DefaultServer.EVENTLOOP_PARENT), DefaultServer.TRANSPORT.eventloop(DefaultServer.EVENTLOOP_CHILD)).channelFactory(DefaultServer.TRANSPORT.server()).childHandler(this.inits.factory()).option(ChannelOption.SO_REUSEADDR, true).bind(DefaultServer.BINDING, this.local.port()).sync();
 		DefaultServer.LOGGER.info("Server " + this.local + " started ... ");
 	}
 
+	/**
+	 * Epoll相关配置
+	 * 
+	 * @return
+	 */
+	private ServerBootstrap epoll4config() {
+		if (DefaultServer.TRANSPORT.epoll()) {
+			EpollMode mode = EpollMode.valueOf(DefaultServer.EPOLL_MODE.toUpperCase());
+			this.bootstrap.option(EpollChannelOption.EPOLL_MODE, mode).childOption(EpollChannelOption.EPOLL_MODE, mode);
+			this.bootstrap.option(EpollChannelOption.TCP_DEFER_ACCEPT, DefaultServer.EPOLL_DEFER_ACCEPT);
+			this.bootstrap.childOption(EpollChannelOption.TCP_QUICKACK, DefaultServer.EPOLL_QUICKACK);
+		}
+		return this.bootstrap;
+	}
+
 	/**
 	 * For Spring
 	 * 
@@ -233,7 +271,13 @@ public class DefaultServer {
 
 		@Override
 		public void channelRead(ChannelHandlerContext ctx, Object message) throws Exception {
-			DefaultServer.this.threads.execute(new Reply(ctx, ByteBuf.class.cast(message)));
+			Reply reply = new Reply(ctx, ByteBuf.class.cast(message));
+			try {
+				DefaultServer.this.workers.execute(reply);
+			} catch (RejectedExecutionException exception) {
+				// 线程池饱和, 拒绝请求(不在EventLoop执行业务)
+				reply.busy(exception);
+			}
 		}
 
 		public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
@@ -334,6 +378,24 @@ public class DefaultServer {
 				return this;
 			}
 
+			/**
+			 * 线程池/服务隔离饱和, 解析Request(如尚未解析)并直接返回KeplerBusyException
+			 * 
+			 * @param exception
+			 */
+			public void busy(RejectedExecutionException exception) {
+				try {
+					if (this.request == null) {
+						this.request();
+					}
+					DefaultServer.LOGGER.warn("[server-busy][service=" + this.request.service() + "][method=" + this.request.method() + "][remote=" + this.ctx.channel().remoteAddress() + "]");
+					this.response = DefaultServer.this.response.factory(this.request.serial()).throwable(this.request.ack(), new KeplerBusyException("Server busy: " + exception.getMessage()), this.request.serial());
+					this.ctx.writeAndFlush(DefaultServer.this.encoder.encode(this.request.service(), this.request.method(), this.response)).addListener(ExceptionListener.listener(this.ctx, this.request.get(Trace.TRACE)));
+				} catch (Throwable throwable) {
+					DefaultServer.LOGGER.error(throwable.getMessage(), throwable);
+				}
+			}
+
 			@Override
 			public void run() {
 				try {
@@ -342,6 +404,9 @@ public class DefaultServer {
 					if (!DefaultServer.this.queue.executor(this.request, this)) {
 						this.running();
 					}
+				} catch (RejectedExecutionException exception) {
+					// 服务隔离饱和
+					this.busy(exception);
 				} catch (Throwable throwable) {
 					DefaultServer.LOGGER.error(throwable.getMessage(), throwable);
 				}
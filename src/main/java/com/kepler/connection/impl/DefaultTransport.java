@@ -0,0 +1,82 @@
+package com.kepler.connection.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import io.netty.bootstrap.ChannelFactory;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+
+/**
+ * 传输层(NIO/Epoll), Epoll不可用时回退至NIO
+ * 
+ * @author KimShen
+ *
+ */
+public class DefaultTransport {
+
+	public static final String NAME_EPOLL = "epoll";
+
+	public static final String NAME_NIO = "nio";
+
+	private static final Log LOGGER = LogFactory.getLog(DefaultTransport.class);
+
+	public static final DefaultTransport NIO = new DefaultTransport(DefaultTransport.NAME_NIO, DefaultChannelFactory.INSTANCE_CLIENT, DefaultChannelFactory.INSTANCE_SERVER);
+
+	public static final DefaultTransport EPOLL = new DefaultTransport(DefaultTransport.NAME_EPOLL, DefaultChannelFactory.INSTANCE_CLIENT_EPOLL, DefaultChannelFactory.INSTANCE_SERVER_EPOLL);
+
+	private final ChannelFactory<SocketChannel> client;
+
+	private final ChannelFactory<ServerChannel> server;
+
+	private final String name;
+
+	private DefaultTransport(String name, ChannelFactory<SocketChannel> client, ChannelFactory<ServerChannel> server) {
+		super();
+		this.client = client;
+		this.server = server;
+		this.name = name;
+	}
+
+	/**
+	 * 获取指定传输层, 如果指定Epoll但当前系统不支持则使用NIO
+	 * 
+	 * @param name
+	 * @return
+	 */
+	public static DefaultTransport select(String name) {
+		if (DefaultTransport.NAME_EPOLL.equalsIgnoreCase(name)) {
+			if (Epoll.isAvailable()) {
+				DefaultTransport.LOGGER.info("Transport: " + DefaultTransport.NAME_EPOLL);
+				return DefaultTransport.EPOLL;
+			}
+			DefaultTransport.LOGGER.warn("Epoll unavailable, using nio ... (" + Epoll.unavailabilityCause() + ")");
+		}
+		DefaultTransport.LOGGER.info("Transport: " + DefaultTransport.NAME_NIO);
+		return DefaultTransport.NIO;
+	}
+
+	public EventLoopGroup eventloop(int threads) {
+		return this.epoll() ? new EpollEventLoopGroup(threads) : new NioEventLoopGroup(threads);
+	}
+
+	public ChannelFactory<SocketChannel> client() {
+		return this.client;
+	}
+
+	public ChannelFactory<ServerChannel> server() {
+		return this.server;
+	}
+
+	public boolean epoll() {
+		return this == DefaultTransport.EPOLL;
+	}
+
+	public String toString() {
+		return "[transport=" + this.name + "]";
+	}
+}
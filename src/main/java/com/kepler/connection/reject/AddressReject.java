@@ -33,7 +33,7 @@ public class AddressReject implements Reject {
 
 	@Override
 	public void reject(Request request, SocketAddress address) throws KeplerValidateException {
-		String rejects = PropertiesUtils.profile(this.profile.profile(request.service()), AddressReject.ADDRESS_KEY, AddressReject.ADDRESS_VAL);
+		String rejects = this.profile.get(request.service(), AddressReject.ADDRESS_KEY, AddressReject.ADDRESS_VAL);
 		// 如果指定服务开启拒绝请求则抛出异常
 		if (rejects.matches(".*\\[" + InetSocketAddress.class.cast(address).getHostName() + "\\].*")) {
 			throw new KeplerValidateException("Reject: " + request.service() + " from " + address + " ... ");
@@ -69,7 +69,7 @@ public class DefaultRejectContext implements Extension, Reject {
 		// 如果开启Reject则获取当前可用Reject, 如果无法获取则使用默认
 		// 尝试加载Profile, 如果不存在则使用Default
 		if (DefaultRejectContext.ENABLED) {
-			this.rejects.get(PropertiesUtils.profile(this.profile.profile(request.service()), DefaultRejectContext.REJECT_KEY, DefaultRejectContext.REJECT_VAL)).reject(request, address);
+			this.rejects.get(this.profile.get(request.service(), DefaultRejectContext.REJECT_KEY, DefaultRejectContext.REJECT_VAL)).reject(request, address);
 		}
 	}
 
@@ -72,7 +72,7 @@ public class WrapInputStream extends InputStream {
 		if (length4actual <= 0) {
 			return -1;
 		}
-		this.buffer.readBytes(dest, 0, length4actual);
+		this.buffer.readBytes(dest, offset, length4actual);
 		this.position += length4actual;
 		return length4actual;
 	}
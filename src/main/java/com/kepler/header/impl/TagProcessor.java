@@ -25,7 +25,7 @@ public class TagProcessor implements HeadersProcessor {
 
 	@Override
 	public Headers process(Service service, Headers headers) {
-		String tag = PropertiesUtils.profile(this.profile.profile(service), Host.TAG_KEY, Host.TAG_VAL);
+		String tag = this.profile.get(service, Host.TAG_KEY, Host.TAG_VAL);
 		// 如果Profile Tag = 默认Tag则不标记
 		return Host.TAG_DEF.equals(tag) ? headers : headers.putIfAbsent(Host.TAG_KEY, tag);
 	}
@@ -1,6 +1,9 @@
 package com.kepler.header.impl;
 
-import java.util.UUID;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -8,12 +11,11 @@ import org.springframework.util.StringUtils;
 
 import com.kepler.config.PropertiesUtils;
 import com.kepler.header.Headers;
-import com.kepler.org.apache.commons.lang.reflect.MethodUtils;
 import com.kepler.trace.Trace;
 
 /**
  * Trace上下文
- * 
+ *
  * @author KimShen
  *
  */
@@ -24,49 +26,88 @@ public class TraceContext {
 	 */
 	private static final boolean MDC = PropertiesUtils.get(TraceContext.class.getName().toLowerCase() + ".log4j_mdc", false);
 
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * 原始值Key
+	 */
+	private static final String TRACE_ORIG = Trace.TRACE + "_orig";
+
+	private static final String TRACE_COVER_ORIG = Trace.TRACE_COVER + "_orig";
+
+	private static final String SPAN_ORIG = Trace.SPAN + "_orig";
+
+	private static final String SPAN_PARENT_ORIG = Trace.SPAN_PARENT + "_orig";
+
+	private static final String TRACE_SPAN_CHILD_ORIG = Trace.TRACE_SPAN_CHILD + "_orig";
+
+	private static final String TRACE_SPAN_PARENT_ORIG = Trace.TRACE_SPAN_PARENT + "_orig";
+
 	private static final Log LOGGER = LogFactory.getLog(TraceContext.class);
 
 	/**
-	 * Log4j.MDC
+	 * Log4j.MDC.put(String, Object) / Log4j.MDC.remove(String), 启动时绑定
 	 */
-	private static Class<?> CLASS;
+	private static final MethodHandle MDC_PUT;
+
+	private static final MethodHandle MDC_REMOVE;
 
 	static {
+		MethodHandle put = null;
+		MethodHandle remove = null;
 		// 加载Log4j.MDC
 		if (TraceContext.MDC) {
 			try {
-				TraceContext.CLASS = Class.forName("org.apache.log4j.MDC");
+				Class<?> clazz = Class.forName("org.apache.log4j.MDC");
+				put = MethodHandles.publicLookup().findStatic(clazz, "put", MethodType.methodType(void.class, String.class, Object.class));
+				remove = MethodHandles.publicLookup().findStatic(clazz, "remove", MethodType.methodType(void.class, String.class));
 			} catch (Exception e) {
 				TraceContext.LOGGER.warn(e.getMessage(), e);
 			}
 		}
+		MDC_PUT = put;
+		MDC_REMOVE = remove;
+	}
+
+	/**
+	 * 生成64位随机ID(16位Hex), 不依赖SecureRandom
+	 *
+	 * @return
+	 */
+	public static String generate() {
+		long id = ThreadLocalRandom.current().nextLong();
+		char[] chars = new char[16];
+		for (int index = chars.length - 1; index >= 0; index--, id >>>= 4) {
+			chars[index] = TraceContext.HEX[(int) (id & 0x0F)];
+		}
+		return new String(chars);
 	}
 
 	/**
 	 * 创建Trace
-	 * 
+	 *
 	 * @param headers 当前上下文
 	 * @return 创建后的Trace
 	 */
 	private static String trace(String trace) {
 		Headers headers = TraceContext.getHeaders();
 		headers.put(Trace.TRACE, trace);
-		headers.put(Trace.TRACE + "_orig", trace);
+		headers.put(TraceContext.TRACE_ORIG, trace);
 		headers.put(Trace.TRACE_COVER, trace);
-		headers.put(Trace.TRACE_COVER + "_orig", trace);
-		try {
-			if (TraceContext.CLASS != null) {
-				MethodUtils.invokeStaticMethod(TraceContext.CLASS, "put", new Object[] { Trace.TRACE, trace });
+		headers.put(TraceContext.TRACE_COVER_ORIG, trace);
+		if (TraceContext.MDC_PUT != null) {
+			try {
+				TraceContext.MDC_PUT.invokeExact(Trace.TRACE, (Object) trace);
+			} catch (Throwable e) {
+				TraceContext.LOGGER.error(e.getMessage(), e);
 			}
-		} catch (Exception e) {
-			TraceContext.LOGGER.error(e.getMessage(), e);
 		}
 		return trace;
 	}
 
 	/**
 	 * 尝试从上下文获取Headers
-	 * 
+	 *
 	 * @return
 	 */
 	private static Headers getHeaders() {
@@ -79,36 +120,38 @@ public class TraceContext {
 	}
 
 	public static String getSpan() {
-		return TraceContext.getHeaders().get(Trace.SPAN + "_orig");
+		return TraceContext.getHeaders().get(TraceContext.SPAN_ORIG);
 	}
 
 	public static String getParent() {
-		return TraceContext.getHeaders().get(Trace.SPAN_PARENT + "_orig");
+		return TraceContext.getHeaders().get(TraceContext.SPAN_PARENT_ORIG);
 	}
 
+	/**
+	 * 依次尝试原始Trace, 当前Trace, 原始覆盖Trace, 当前覆盖Trace, 命中即返回
+	 *
+	 * @return
+	 */
 	public static String getTrace() {
-		Headers headers = TraceContext.getHeaders();
-		String curr = headers.get(Trace.TRACE);
-		String orig = headers.get(Trace.TRACE + "_orig");
-		String cover_curr = headers.get(Trace.TRACE_COVER);
-		String cover_orig = headers.get(Trace.TRACE_COVER + "_orig");
-		// Guard case1
-		if (!StringUtils.isEmpty(orig)) {
-			return orig;
+		// 仅读取, 不存在Headers时不创建
+		Headers headers = ThreadHeaders.HEADERS.get();
+		if (headers == null) {
+			return null;
 		}
-		// Guard case2
-		if (!StringUtils.isEmpty(curr)) {
-			return curr;
+		String trace = headers.get(TraceContext.TRACE_ORIG);
+		if (!StringUtils.isEmpty(trace)) {
+			return trace;
 		}
-		// Guard case3
-		if (!StringUtils.isEmpty(cover_orig)) {
-			return cover_orig;
+		trace = headers.get(Trace.TRACE);
+		if (!StringUtils.isEmpty(trace)) {
+			return trace;
 		}
-		// Guard case4
-		if (!StringUtils.isEmpty(cover_curr)) {
-			return cover_curr;
+		trace = headers.get(TraceContext.TRACE_COVER_ORIG);
+		if (!StringUtils.isEmpty(trace)) {
+			return trace;
 		}
-		return null;
+		trace = headers.get(Trace.TRACE_COVER);
+		return !StringUtils.isEmpty(trace) ? trace : null;
 	}
 
 	public static String getTraceOnCreate() {
@@ -121,13 +164,13 @@ public class TraceContext {
 		if (!StringUtils.isEmpty(trace_selected)) {
 			return trace_selected;
 		}
-		// 不存在Trace则使用指定Trace或UUID
-		return TraceContext.trace(!StringUtils.isEmpty(trace) ? trace : UUID.randomUUID().toString());
+		// 不存在Trace则使用指定Trace或随机生成
+		return TraceContext.trace(!StringUtils.isEmpty(trace) ? trace : TraceContext.generate());
 	}
 
 	/**
 	 * 释放上下文相关Trace(将导致之后的调用Trace中断)
-	 * 
+	 *
 	 * @return
 	 */
 	public static void release() {
@@ -135,17 +178,24 @@ public class TraceContext {
 		Headers headers = ThreadHeaders.HEADERS.get();
 		if (headers != null) {
 			headers.delete(Trace.SPAN);
-			headers.delete(Trace.SPAN + "_orig");
+			headers.delete(TraceContext.SPAN_ORIG);
 			headers.delete(Trace.SPAN_PARENT);
-			headers.delete(Trace.SPAN_PARENT + "_orig");
+			headers.delete(TraceContext.SPAN_PARENT_ORIG);
 			headers.delete(Trace.TRACE);
-			headers.delete(Trace.TRACE + "_orig");
+			headers.delete(TraceContext.TRACE_ORIG);
 			headers.delete(Trace.TRACE_COVER);
-			headers.delete(Trace.TRACE_COVER + "_orig");
+			headers.delete(TraceContext.TRACE_COVER_ORIG);
 			headers.delete(Trace.TRACE_SPAN_CHILD);
-			headers.delete(Trace.TRACE_SPAN_CHILD + "_orig");
+			headers.delete(TraceContext.TRACE_SPAN_CHILD_ORIG);
 			headers.delete(Trace.TRACE_SPAN_PARENT);
-			headers.delete(Trace.TRACE_SPAN_PARENT + "_orig");
+			headers.delete(TraceContext.TRACE_SPAN_PARENT_ORIG);
+		}
+		if (TraceContext.MDC_REMOVE != null) {
+			try {
+				TraceContext.MDC_REMOVE.invokeExact(Trace.TRACE);
+			} catch (Throwable e) {
+				TraceContext.LOGGER.error(e.getMessage(), e);
+			}
 		}
 	}
 }
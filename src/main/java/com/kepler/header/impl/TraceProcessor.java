@@ -4,7 +4,6 @@ import com.kepler.config.Profile;
 import com.kepler.config.PropertiesUtils;
 import com.kepler.header.Headers;
 import com.kepler.header.HeadersProcessor;
-import com.kepler.id.impl.GuidGenerator;
 import com.kepler.org.apache.commons.lang.StringUtils;
 import com.kepler.service.Service;
 import com.kepler.trace.Trace;
@@ -18,20 +17,17 @@ public class TraceProcessor implements HeadersProcessor {
 
 	private static final int SORT = PropertiesUtils.get(TraceProcessor.class.getName().toLowerCase() + ".sort", Integer.MAX_VALUE);
 
-	private final GuidGenerator generator;
-
 	private final Profile profile;
 
-	public TraceProcessor(Profile profile, GuidGenerator idGenerator) {
+	public TraceProcessor(Profile profile) {
 		super();
 		this.profile = profile;
-		this.generator = idGenerator;
 	}
 
 	@Override
 	public Headers process(Service service, Headers headers) {
 		// 如果开启Trace则生成
-		if (PropertiesUtils.profile(this.profile.profile(service), Trace.ENABLED_KEY, Trace.ENABLED_DEF) && headers != null) {
+		if (this.profile.get(service, Trace.ENABLED_KEY, Trace.ENABLED_DEF) && headers != null) {
 			this.process4trace(headers);
 			this.process4span(headers);
 		} else {
@@ -44,7 +40,7 @@ public class TraceProcessor implements HeadersProcessor {
 
 	private void process4span(Headers headers) {
 		// 创建SPAN ID
-		headers.put(Trace.SPAN, this.generator.toString(this.generator.generate()));
+		headers.put(Trace.SPAN, TraceContext.generate());
 		// 创建Trace时间
 		headers.putIfAbsent(Trace.START_TIME, String.valueOf(System.currentTimeMillis()));
 	}
@@ -53,8 +49,8 @@ public class TraceProcessor implements HeadersProcessor {
 		// 如果已存在Trace ID则覆盖否则创建新Trace ID
 		if (!StringUtils.isEmpty(headers.get(Trace.TRACE_COVER))) {
 			headers.putIfAbsent(Trace.TRACE, headers.get(Trace.TRACE_COVER));
-		} else {
-			headers.putIfAbsent(Trace.TRACE, this.generator.toString(this.generator.generate()));
+		} else if (StringUtils.isEmpty(headers.get(Trace.TRACE))) {
+			headers.put(Trace.TRACE, TraceContext.generate());
 		}
 	}
 
@@ -38,6 +38,13 @@ public interface HostsContext {
 	 */
 	public Hosts getOrCreate(Service service);
 
+	/**
+	 * 原子批量变更, 执行期间独占变更锁(其他变更等待), 读取仅可见批量前或批量后状态
+	 * 
+	 * @param update
+	 */
+	public void update(Runnable update);
+
 	/**
 	 * Hosts 4 all service
 	 * 
@@ -1,5 +1,6 @@
 package com.kepler.host.impl;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,9 +37,9 @@ public class DefaultHostContext implements HostsContext, Router {
 	private static final Log LOGGER = LogFactory.getLog(DefaultHostContext.class);
 
 	/**
-	 * 服务 - 主机映射
+	 * 服务 - 主机映射(Copy on write, 不可变)
 	 */
-	private final Map<Service, Hosts> hosts = new HashMap<Service, Hosts>();
+	volatile private Map<Service, Hosts> hosts = Collections.unmodifiableMap(new HashMap<Service, Hosts>());
 
 	private final HostFilter filter;
 
@@ -60,16 +61,17 @@ public class DefaultHostContext implements HostsContext, Router {
 	}
 
 	private Hosts create(Service service, Hosts hosts) {
-		// Hosts锁
-		synchronized (this.hosts) {
-			// Double check, 存在则返回, 不存在则Put
-			if (this.hosts.containsKey(service)) {
-				// Return Hosts
-				return this.hosts.get(service);
-			} else {
-				this.hosts.put(service, hosts);
-				return hosts;
+		// 变更锁
+		synchronized (this) {
+			// Double check, 存在则返回, 不存在则复制并替换
+			Hosts current = this.hosts.get(service);
+			if (current != null) {
+				return current;
 			}
+			Map<Service, Hosts> replace = new HashMap<Service, Hosts>(this.hosts);
+			replace.put(service, hosts);
+			this.hosts = Collections.unmodifiableMap(replace);
+			return hosts;
 		}
 	}
 
@@ -78,12 +80,36 @@ public class DefaultHostContext implements HostsContext, Router {
 		return hosts != null ? hosts : this.create(service, new DefaultHosts(service));
 	}
 
+	@Override
+	public void update(Runnable update) {
+		// 变更锁(可重入), 批量变更期间ban/active/remove/create均等待
+		synchronized (this) {
+			// 批量期间各服务仅暂存快照, 结束后统一发布, 路由不会看到中间状态(如替换过程中的空集合)
+			Map<Service, Hosts> hosts = this.hosts;
+			for (Hosts each : hosts.values()) {
+				if (each instanceof DefaultHosts) {
+					DefaultHosts.class.cast(each).defer();
+				}
+			}
+			try {
+				update.run();
+			} finally {
+				for (Hosts each : hosts.values()) {
+					if (each instanceof DefaultHosts) {
+						DefaultHosts.class.cast(each).flush();
+					}
+				}
+			}
+		}
+	}
+
 	@Override
 	public void ban(Host host) {
-		synchronized (this.hosts) {
+		synchronized (this) {
 			boolean baned_all = false;
-			for (Service service : this.hosts.keySet()) {
-				Hosts hosts = this.hosts.get(service);
+			for (Map.Entry<Service, Hosts> each : this.hosts.entrySet()) {
+				Service service = each.getKey();
+				Hosts hosts = each.getValue();
 				// 强先后顺序, hosts.ban(host)必须调用
 				boolean baned_each = hosts.ban(host);
 				if (baned_each) {
@@ -100,9 +126,10 @@ public class DefaultHostContext implements HostsContext, Router {
 	}
 
 	public void active(Host host) {
-		synchronized (this.hosts) {
-			for (Service service : this.hosts.keySet()) {
-				Hosts hosts = this.hosts.get(service);
+		synchronized (this) {
+			for (Map.Entry<Service, Hosts> each : this.hosts.entrySet()) {
+				Service service = each.getKey();
+				Hosts hosts = each.getValue();
 				hosts.active(host);
 				DefaultHostContext.LOGGER.info("Active. [service=" + service + "][host=" + host.address() + "][pid=" + host.pid() + "]");
 			}
@@ -110,20 +137,23 @@ public class DefaultHostContext implements HostsContext, Router {
 	}
 
 	public void remove(Host host, Service service) {
-		synchronized (this.hosts) {
+		synchronized (this) {
 			Hosts hosts = this.hosts.get(service);
+			if (hosts == null) {
+				return;
+			}
 			hosts.remove(host);
 			DefaultHostContext.LOGGER.info("Remove. [service=" + service + "][host=" + host.address() + "][pid=" + host.pid() + "]");
 		}
 	}
 
-	// 只读(协商)
+	// 只读(快照)
 	public Map<Service, Hosts> hosts() {
 		return this.hosts;
 	}
 
 	public Host host(Request request) {
-		Routing routing = this.routings.get(PropertiesUtils.profile(this.profile.profile(request.service()), DefaultHostContext.ROUTING_KEY, DefaultHostContext.ROUTING_DEF));
+		Routing routing = this.routings.get(this.profile.get(request.service(), DefaultHostContext.ROUTING_KEY, DefaultHostContext.ROUTING_DEF));
 		return routing.route(request, this.hosts(request));
 	}
 
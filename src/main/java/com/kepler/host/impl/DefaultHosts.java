@@ -13,27 +13,41 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.kepler.KeplerLocalException;
+import com.kepler.config.PropertiesUtils;
 import com.kepler.host.Host;
 import com.kepler.host.HostState;
 import com.kepler.host.Hosts;
 import com.kepler.service.Service;
 
 /**
+ * 变更在锁内进行并发布不可变快照, 读取仅访问快照(无锁)
+ * 
  * @author kim 2015年12月30日
  */
 public class DefaultHosts implements Hosts {
 
+	/**
+	 * 每个快照缓存的请求Tag解析结果上限
+	 */
+	private static final int RESOLVED_MAX = PropertiesUtils.get(DefaultHosts.class.getName().toLowerCase() + ".resolved_max", 64);
+
 	private static final List<Host> EMPTY = Collections.unmodifiableList(new ArrayList<Host>());
 
 	private static final Log LOGGER = LogFactory.getLog(DefaultHosts.class);
 
 	/**
-	 * 所有主机(所有状态)
+	 * 所有主机(所有状态), 仅锁内访问
 	 */
 	private final List<Host> hosts = new ArrayList<Host>();
 
+	/**
+	 * 仅锁内访问
+	 */
 	private final Set<Host> waiting = new HashSet<Host>();
 
+	/**
+	 * 仅锁内访问
+	 */
 	private final Set<Host> bans = new HashSet<Host>();
 
 	private final Tags tags = new Tags();
@@ -42,6 +56,21 @@ public class DefaultHosts implements Hosts {
 
 	private final Service service;
 
+	/**
+	 * 批量变更中待发布快照, 仅锁内访问
+	 */
+	private Snapshot pending;
+
+	/**
+	 * 是否处于批量变更(延迟发布), 仅锁内访问
+	 */
+	private boolean deferred;
+
+	/**
+	 * 当前快照
+	 */
+	volatile private Snapshot snapshot = new Snapshot(0, DefaultHosts.EMPTY, new HashSet<Host>(), new HashSet<Host>(), new HashMap<String, List<Host>>());
+
 	public DefaultHosts(Service service) {
 		super();
 		this.service = service;
@@ -52,12 +81,57 @@ public class DefaultHosts implements Hosts {
 	}
 
 	/**
-	 * (任意状态)是否含指定Host, 调用者加锁
+	 * 根据当前状态发布新快照, 批量变更期间仅暂存. 调用者加锁
+	 */
+	private void publish() {
+		Snapshot current = this.pending != null ? this.pending : this.snapshot;
+		Snapshot snapshot = new Snapshot(current.version + 1, Collections.unmodifiableList(new ArrayList<Host>(this.hosts)), new HashSet<Host>(this.waiting), new HashSet<Host>(this.bans), this.tags.copy());
+		if (this.deferred) {
+			this.pending = snapshot;
+		} else {
+			this.snapshot = snapshot;
+		}
+	}
+
+	/**
+	 * 开始批量变更, 后续变更至Flush前对读取不可见
+	 */
+	void defer() {
+		synchronized (this) {
+			this.deferred = true;
+		}
+	}
+
+	/**
+	 * 结束批量变更, 发布最终快照(读取仅可见批量前或批量后状态)
+	 */
+	void flush() {
+		synchronized (this) {
+			this.deferred = false;
+			if (this.pending != null) {
+				this.snapshot = this.pending;
+				this.pending = null;
+			}
+		}
+	}
+
+	/**
+	 * (任意状态)是否含指定Host
 	 * 
 	 * @param host
 	 * @return
 	 */
 	public boolean contain(Host host) {
+		return this.snapshot.contain(host);
+	}
+
+	/**
+	 * (任意状态)是否含指定Host, 调用者加锁
+	 * 
+	 * @param host
+	 * @return
+	 */
+	private boolean contain4lock(Host host) {
 		return this.hosts.contains(host) || this.bans.contains(host) || this.waiting.contains(host);
 	}
 
@@ -81,20 +155,31 @@ public class DefaultHosts implements Hosts {
 		return remove_ban;
 	}
 
+	/**
+	 * 调用者加锁
+	 * 
+	 * @param host
+	 */
+	private void remove4lock(Host host) {
+		// 从Host&&Tag&Address删除(运行时Host)或从Ban||Waiting删除(待连接Host)
+		if (this.remove4active(host) || this.remove4wait(host) || this.remove4ban(host)) {
+			DefaultHosts.LOGGER.warn(this.detail(host, "removed"));
+		}
+	}
+
 	public void remove(Host host) {
 		synchronized (this) {
-			// 从Host&&Tag&Address删除(运行时Host)或从Ban||Waiting删除(待连接Host)
-			if (this.remove4active(host) || this.remove4wait(host) || this.remove4ban(host)) {
-				DefaultHosts.LOGGER.warn(this.detail(host, "removed"));
-			}
+			this.remove4lock(host);
+			this.publish();
 		}
 	}
 
 	public void wait(Host host) {
 		synchronized (this) {
 			// 不在任意列表
-			if (!this.contain(host)) {
+			if (!this.contain4lock(host)) {
 				this.waiting.add(host);
+				this.publish();
 				DefaultHosts.LOGGER.warn(this.detail(host, "waiting"));
 			}
 		}
@@ -107,6 +192,7 @@ public class DefaultHosts implements Hosts {
 				this.sids.put(host);
 				this.tags.put(host);
 				this.hosts.add(host);
+				this.publish();
 				DefaultHosts.LOGGER.warn(this.detail(host, "active"));
 			}
 		}
@@ -114,10 +200,11 @@ public class DefaultHosts implements Hosts {
 
 	public void replace(Host current, Host newone) {
 		synchronized (this) {
-			this.remove(current);
+			this.remove4lock(current);
 			this.sids.put(newone);
 			this.tags.put(newone);
 			this.hosts.add(newone);
+			this.publish();
 			DefaultHosts.LOGGER.warn(this.detail(newone, "replace"));
 		}
 	}
@@ -128,6 +215,7 @@ public class DefaultHosts implements Hosts {
 			if ((this.hosts.remove(host) && this.tags.remove(host)) || this.waiting.remove(host)) {
 				this.sids.remove(host);
 				this.bans.add(host);
+				this.publish();
 				DefaultHosts.LOGGER.warn(this.detail(host, "baned"));
 				return true;
 			}
@@ -137,21 +225,22 @@ public class DefaultHosts implements Hosts {
 	}
 
 	public List<Host> main() {
-		return this.tags.get(Host.TAG_DEF);
+		return this.snapshot.tags(Host.TAG_DEF);
 	}
 
 	public List<Host> tags(String tag) {
-		return this.tags.get(tag);
+		return this.snapshot.tags(tag);
 	}
 
 	public List<Host> select(HostState state) {
+		Snapshot snapshot = this.snapshot;
 		switch (state) {
 		case WAITING:
-			return new ArrayList<Host>(this.waiting);
+			return new ArrayList<Host>(snapshot.waiting);
 		case ACTIVE:
-			return new ArrayList<Host>(this.hosts);
+			return new ArrayList<Host>(snapshot.hosts);
 		case BAN:
-			return new ArrayList<Host>(this.bans);
+			return new ArrayList<Host>(snapshot.bans);
 		default:
 			throw new KeplerLocalException("Unvalid state for " + state);
 		}
@@ -163,14 +252,67 @@ public class DefaultHosts implements Hosts {
 	}
 
 	public String toString() {
-		return "[service=" + this.service + "][waiting=" + this.waiting.size() + "][ban=" + this.bans.size() + "][hosts=" + this.hosts.size() + "]";
+		Snapshot snapshot = this.snapshot;
+		return "[service=" + this.service + "][version=" + snapshot.version + "][waiting=" + snapshot.waiting.size() + "][ban=" + snapshot.bans.size() + "][hosts=" + snapshot.hosts.size() + "]";
 	}
 
-	private class Tags {
+	/**
+	 * 不可变快照
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private static class Snapshot {
 
-		private final Map<String, List<Host>> tags = new HashMap<String, List<Host>>();
+		private final long version;
+
+		/**
+		 * 运行时主机
+		 */
+		private final List<Host> hosts;
+
+		private final Set<Host> actives;
 
-		public List<Host> get(String tag) {
+		private final Set<Host> waiting;
+
+		private final Set<Host> bans;
+
+		/**
+		 * Tag - 主机(不可变集合)
+		 */
+		private final Map<String, List<Host>> tags;
+
+		/**
+		 * 请求Tag(可能包含多个) - 主机, 首次访问时解析
+		 */
+		private final Map<String, List<Host>> resolved = new ConcurrentHashMap<String, List<Host>>();
+
+		private Snapshot(long version, List<Host> hosts, Set<Host> waiting, Set<Host> bans, Map<String, List<Host>> tags) {
+			this.actives = new HashSet<Host>(hosts);
+			this.version = version;
+			this.waiting = waiting;
+			this.hosts = hosts;
+			this.bans = bans;
+			this.tags = tags;
+		}
+
+		public boolean contain(Host host) {
+			return this.actives.contains(host) || this.bans.contains(host) || this.waiting.contains(host);
+		}
+
+		public List<Host> tags(String tag) {
+			List<Host> hosts = this.resolved.get(tag);
+			if (hosts == null) {
+				hosts = this.resolve(tag);
+				// 限制缓存数量
+				if (this.resolved.size() < DefaultHosts.RESOLVED_MAX) {
+					this.resolved.put(tag, hosts);
+				}
+			}
+			return hosts;
+		}
+
+		private List<Host> resolve(String tag) {
 			for (String each : tag.split(Host.TAG_MULTI)) {
 				List<Host> hosts = this.tags.get(each);
 				if (hosts != null) {
@@ -179,32 +321,44 @@ public class DefaultHosts implements Hosts {
 			}
 			return DefaultHosts.EMPTY;
 		}
+	}
+
+	/**
+	 * 由外部调用进行同步安全
+	 * 
+	 * @author kim
+	 */
+	private class Tags {
+
+		private final Map<String, List<Host>> tags = new HashMap<String, List<Host>>();
 
-		/**
-		 * 由外部调用进行同步安全
-		 * 
-		 * @param host
-		 * @return
-		 */
 		public Tags put(Host host) {
-			List<Host> hosts = this.get(host.tag());
+			List<Host> hosts = this.tags.get(host.tag());
 			// 不存在则创建
-			(hosts = hosts != DefaultHosts.EMPTY ? hosts : new ArrayList<Host>()).add(host);
-			this.tags.put(host.tag(), hosts);
+			if (hosts == null) {
+				this.tags.put(host.tag(), (hosts = new ArrayList<Host>()));
+			}
+			hosts.add(host);
 			return this;
 		}
 
+		public boolean remove(Host host) {
+			// InvokerHandler.channelInactive回调此方法.
+			List<Host> hosts = this.tags.get(host.tag());
+			return hosts != null ? hosts.remove(host) : false;
+		}
+
 		/**
-		 * 由外部调用进行同步安全
+		 * 不可变副本
 		 * 
-		 * @param host
 		 * @return
 		 */
-		public boolean remove(Host host) {
-			List<Host> hosts = this.get(host.tag());
-			// InvokerHandler.channelInactive回调此方法.
-			// 禁止对DefaultHosts.EMPTY调用Remove
-			return hosts != DefaultHosts.EMPTY ? hosts.remove(host) : false;
+		public Map<String, List<Host>> copy() {
+			Map<String, List<Host>> copy = new HashMap<String, List<Host>>();
+			for (String tag : this.tags.keySet()) {
+				copy.put(tag, Collections.unmodifiableList(new ArrayList<Host>(this.tags.get(tag))));
+			}
+			return copy;
 		}
 	}
 
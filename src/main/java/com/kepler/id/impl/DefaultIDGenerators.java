@@ -38,7 +38,7 @@ public class DefaultIDGenerators implements IDGenerators, Extension {
 
 	@Override
 	public IDGenerator get(Service service, String method) {
-		String name = PropertiesUtils.profile(this.profile.profile(service), DefaultIDGenerators.GENERATOR_KEY, DefaultIDGenerators.GENERATOR_DEF);
+		String name = this.profile.get(service, DefaultIDGenerators.GENERATOR_KEY, DefaultIDGenerators.GENERATOR_DEF);
 		if (!this.ids.containsKey(name)) {
 			throw new KeplerException("Can not found mathched generator: " + name + " ... ");
 		}
@@ -4,8 +4,14 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kepler.thread.FutureListener;
+import com.kepler.thread.FuturePromise;
 
 /**
+ * 如果所有Future均支持监听(FuturePromise)且未指定Timeout, 则在全部完成后才提交回调, 不占用等待线程
+ * 
  * @author kim
  *
  * 2016年2月16日
@@ -21,7 +27,7 @@ public class AsyncPromise {
 
 	@SafeVarargs
 	final public void promise(AsyncCallback callback, Future<Object>... futures) {
-		this.threads.execute(new FutureLaunch(callback, futures));
+		AsyncPromise.promise(callback, this.threads, futures);
 	}
 
 	@SafeVarargs
@@ -31,7 +37,11 @@ public class AsyncPromise {
 
 	@SafeVarargs
 	final public static void promise(AsyncCallback callback, Executor executor, Future<Object>... futures) {
-		executor.execute(new FutureLaunch(callback, futures));
+		// 无法监听则使用线程等待
+		FutureLaunch launch = new FutureLaunch(callback, futures);
+		if (!AsyncPromise.listen(launch, executor)) {
+			executor.execute(launch);
+		}
 	}
 
 	@SafeVarargs
@@ -39,6 +49,58 @@ public class AsyncPromise {
 		executor.execute(new FutureLaunch(timeout, callback, futures));
 	}
 
+	/**
+	 * 注册监听, 全部完成后提交FutureLaunch(此时Get不会堵塞)
+	 * 
+	 * @param launch
+	 * @param executor
+	 * @return 是否全部支持监听
+	 */
+	private static boolean listen(FutureLaunch launch, Executor executor) {
+		if (launch.futures.length == 0) {
+			return false;
+		}
+		for (Future<Object> each : launch.futures) {
+			if (!(each instanceof FuturePromise) || !FuturePromise.class.cast(each).listenable()) {
+				return false;
+			}
+		}
+		FutureCountdown countdown = new FutureCountdown(launch, executor, launch.futures.length);
+		for (Future<Object> each : launch.futures) {
+			// 计数使用轻量回调(完成线程执行)
+			FuturePromise.class.cast(each).listener(countdown, null);
+		}
+		return true;
+	}
+
+	/**
+	 * 完成计数
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private static class FutureCountdown implements FutureListener {
+
+		private final AtomicInteger remain;
+
+		private final FutureLaunch launch;
+
+		private final Executor executor;
+
+		private FutureCountdown(FutureLaunch launch, Executor executor, int remain) {
+			this.remain = new AtomicInteger(remain);
+			this.executor = executor;
+			this.launch = launch;
+		}
+
+		@Override
+		public void complete(Future<Object> future) {
+			if (this.remain.decrementAndGet() == 0) {
+				this.executor.execute(this.launch);
+			}
+		}
+	}
+
 	/**
 	 * 
 	 * @author kim
@@ -2,7 +2,6 @@ package com.kepler.invoker.cache;
 
 import java.lang.reflect.Method;
 
-import com.kepler.cache.Cache;
 import com.kepler.cache.CacheContext;
 import com.kepler.config.PropertiesUtils;
 import com.kepler.invoker.Invoker;
@@ -40,20 +39,6 @@ public class CachedInvoker implements Invoker {
 		return CachedInvoker.ACTIVED ? this.invoke4cache(request, method) : this.invoker.invoke(request, method);
 	}
 
-	/**
-	 * 更新缓存
-	 * 
-	 * @param request
-	 * @param cache
-	 * @return 本地调用实际结果
-	 * @throws Throwable
-	 */
-	private Object invoke4reset(Request request, Method method, Cache cache) throws Throwable {
-		Object response = this.invoker.invoke(request, method);
-		cache.set(response);
-		return response;
-	}
-
 	/**
 	 * 使用缓存加载/恢复数据
 	 * 
@@ -62,8 +47,7 @@ public class CachedInvoker implements Invoker {
 	 * @throws Throwable
 	 */
 	private Object invoke4cache(Request request, Method method) throws Throwable {
-		Cache cache = this.cache.get(request.service(), request.method());
-		// 如果已过期则更新缓存
-		return cache.expired() ? this.invoke4reset(request, method, cache) : cache.get();
+		// 异步请求(返回Future)不使用缓存
+		return request.async() ? this.invoker.invoke(request, method) : this.cache.get(request.service(), request.method()).get(request, method, this.invoker);
 	}
 }
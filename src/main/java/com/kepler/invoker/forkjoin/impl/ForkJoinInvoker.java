@@ -176,7 +176,7 @@ public class ForkJoinInvoker implements Imported, Invoker {
 	 * @return
 	 */
 	private String[] tag(Request request) {
-		String tags = PropertiesUtils.profile(this.profile.profile(request.service()), ForkJoinInvoker.TAGS_KEY, ForkJoinInvoker.TAGS_DEF);
+		String tags = this.profile.get(request.service(), ForkJoinInvoker.TAGS_KEY, ForkJoinInvoker.TAGS_DEF);
 		return tags.split(";");
 	}
 
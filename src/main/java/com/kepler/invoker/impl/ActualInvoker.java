@@ -1,13 +1,27 @@
 package com.kepler.invoker.impl;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.kepler.KeplerBusyException;
+import com.kepler.KeplerCircuitException;
 import com.kepler.KeplerErrorException;
+import com.kepler.KeplerException;
+import com.kepler.KeplerLimitException;
+import com.kepler.KeplerNetworkException;
 import com.kepler.KeplerRemoteException;
 import com.kepler.KeplerRoutingException;
+import com.kepler.ack.impl.AckTimer;
 import com.kepler.annotation.Config;
 import com.kepler.annotation.Internal;
 import com.kepler.channel.ChannelContext;
@@ -21,8 +35,15 @@ import com.kepler.mock.Mocker;
 import com.kepler.mock.MockerContext;
 import com.kepler.protocol.Request;
 import com.kepler.router.Router;
+import com.kepler.router.filter.exclude.ExcludeFilter;
+import com.kepler.service.Service;
+import com.kepler.thread.FutureDelegate;
+import com.kepler.thread.WorkerExecutor;
 import com.kepler.trace.TraceCauses;
 
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+
 /**
  * @author kim 2015年7月8日
  */
@@ -35,37 +56,76 @@ public class ActualInvoker implements Invoker {
 	private static final boolean ERROR_TO_EXCEPTION = PropertiesUtils.get(ActualInvoker.class.getName().toLowerCase() + ".error_to_exception", true);
 
 	/**
-	 * None Service重试间隔
+	 * 重试初始间隔(指数退避基数)
+	 */
+	private static final int INTERVAL = PropertiesUtils.get(ActualInvoker.class.getName().toLowerCase() + ".interval", 100);
+
+	/**
+	 * 重试最大间隔
 	 */
-	private static final int INTERVAL = PropertiesUtils.get(ActualInvoker.class.getName().toLowerCase() + ".interval", 500);
+	private static final int INTERVAL_MAX = PropertiesUtils.get(ActualInvoker.class.getName().toLowerCase() + ".interval_max", 2000);
 
 	/**
-	 * None Service重试阀值
+	 * 重试阀值
 	 */
 	private static final int TIMEOUT = PropertiesUtils.get(ActualInvoker.class.getName().toLowerCase() + ".timeout", 3000);
 
+	/**
+	 * 每次请求存入的重试额度(即重试占请求的比例)
+	 */
+	private static final double BUDGET_RATIO = PropertiesUtils.get(ActualInvoker.class.getName().toLowerCase() + ".budget_ratio", 0.2);
+
+	/**
+	 * 初始重试额度, 用于冷启动(如服务尚未发现)
+	 */
+	private static final int BUDGET_RESERVE = PropertiesUtils.get(ActualInvoker.class.getName().toLowerCase() + ".budget_reserve", 10);
+
+	/**
+	 * 最大重试额度
+	 */
+	private static final int BUDGET_MAX = Math.max(PropertiesUtils.get(ActualInvoker.class.getName().toLowerCase() + ".budget_max", 100), ActualInvoker.BUDGET_RESERVE);
+
+	/**
+	 * 额度精度, 单次重试消耗1000
+	 */
+	private static final long BUDGET_UNIT = 1000;
+
 	private static final Log LOGGER = LogFactory.getLog(ActualInvoker.class);
 
+	private final ConcurrentMap<Service, Budget> budgets = new ConcurrentHashMap<Service, Budget>();
+
 	private final InvokerProcessor processor;
 
+	/**
+	 * 异步重试线程池, 饱和时拒绝(避免在时间轮线程中执行)
+	 */
+	private final WorkerExecutor threads;
+
 	private final ChannelContext channels;
 
 	private final MockerContext mocker;
 
+	private final ExcludeFilter exclude;
+
 	private final TraceCauses trace;
 
+	private final AckTimer timer;
+
 	private final Router router;
 
 	private int interval = ActualInvoker.INTERVAL;
 
 	private int timeout = ActualInvoker.TIMEOUT;
 
-	public ActualInvoker(InvokerProcessor processor, ChannelContext channels, TraceCauses trace, MockerContext mocker, Router router) {
+	public ActualInvoker(InvokerProcessor processor, ChannelContext channels, WorkerExecutor threads, ExcludeFilter exclude, TraceCauses trace, MockerContext mocker, AckTimer timer, Router router) {
 		super();
 		this.processor = processor;
 		this.channels = channels;
+		this.exclude = exclude;
+		this.threads = threads;
 		this.router = router;
 		this.mocker = mocker;
+		this.timer = timer;
 		this.trace = trace;
 	}
 
@@ -86,55 +146,253 @@ public class ActualInvoker implements Invoker {
 
 	@Override
 	public Object invoke(Request request, Method method) throws Throwable {
+		Retry retry = new Retry(request, method);
 		try {
-			return this.invoker(request, method, System.currentTimeMillis());
+			return retry.invoke();
 		} catch (KeplerRemoteException exception) {
-			Throwable cause = exception.cause();
-			throw ActualInvoker.ERROR_TO_EXCEPTION && Error.class.isAssignableFrom(cause.getClass()) ? new KeplerErrorException(Error.class.cast(cause)) : exception.cause();
+			throw this.cause(exception);
 		} finally {
-			Headers headers = request.headers();
-			if (headers != null) {
-				headers.delete(DelegateArray.DELEGATE_KEY);
+			// 异步重试由重试任务清理
+			if (!retry.scheduled()) {
+				this.clean(request);
 			}
 		}
 	}
 
+	private Throwable cause(KeplerRemoteException exception) {
+		Throwable cause = exception.cause();
+		return ActualInvoker.ERROR_TO_EXCEPTION && Error.class.isAssignableFrom(cause.getClass()) ? new KeplerErrorException(Error.class.cast(cause)) : cause;
+	}
+
+	private void clean(Request request) {
+		Headers headers = request.headers();
+		if (headers != null) {
+			headers.delete(DelegateArray.DELEGATE_KEY);
+		}
+	}
+
+	private Budget budget(Service service) {
+		Budget budget = this.budgets.get(service);
+		if (budget == null) {
+			Budget created = new Budget();
+			budget = this.budgets.putIfAbsent(service, created);
+			budget = budget != null ? budget : created;
+		}
+		return budget;
+	}
+
 	/**
-	 * @param request
-	 * @param timestamp
-	 *            本次执行起始时间
+	 * 是否为可重试异常(请求未被服务端执行)
+	 *
+	 * @param throwable
 	 * @return
-	 * @throws Throwable
 	 */
-	private Object invoker(Request request, Method method, long timestamp) throws Throwable {
-		try {
-			Host _host = this.router.host(request);
-			Request _request = this.processor.before(request, _host);
-			return this.channels.get(_host).invoke(_request, method);
-		} catch (KeplerRoutingException exception) {
-			// 存在Mocker则使用Mocker, 否则重试
-			Mocker mocker = this.mocker.get(request.service());
-			return mocker != null ? mocker.mock(request) : this.retry(request, method, timestamp, exception);
-		} catch (Throwable throwable) {
-			this.trace.put(request, throwable);
-			throw throwable;
-		}
+	private boolean retryable(Throwable throwable) {
+		return throwable instanceof KeplerRoutingException || throwable instanceof KeplerCircuitException || throwable instanceof KeplerLimitException || throwable instanceof KeplerNetworkException || throwable instanceof KeplerBusyException;
 	}
 
-	private Object retry(Request request, Method method, long timestamp, KeplerRoutingException exception) throws Throwable {
-		// 是否终止重试
-		this.timeout(timestamp, request, exception);
-		ActualInvoker.LOGGER.warn("Warning: " + exception.getMessage() + " then retry ... ");
-		Thread.sleep(this.interval);
-		// 重试
-		return this.invoker(request, method, timestamp);
+	/**
+	 * 指数退避 + 随机抖动([Delay / 2, Delay])
+	 *
+	 * @param attempt
+	 * @return
+	 */
+	private long backoff(int attempt) {
+		long delay = Math.min((long) Math.max(this.interval, 1) << Math.min(attempt, 16), ActualInvoker.INTERVAL_MAX);
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+	/**
+	 * 服务级重试额度(令牌桶), 每次请求存入Ratio, 每次重试取出1
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private static class Budget {
+
+		private static final long DEPOSIT = (long) (ActualInvoker.BUDGET_RATIO * ActualInvoker.BUDGET_UNIT);
+
+		private static final long MAX = ActualInvoker.BUDGET_MAX * ActualInvoker.BUDGET_UNIT;
+
+		private final AtomicLong tokens = new AtomicLong(ActualInvoker.BUDGET_RESERVE * ActualInvoker.BUDGET_UNIT);
+
+		public void deposit() {
+			for (long current = this.tokens.get(); current < Budget.MAX; current = this.tokens.get()) {
+				if (this.tokens.compareAndSet(current, Math.min(current + Budget.DEPOSIT, Budget.MAX))) {
+					return;
+				}
+			}
+		}
+
+		public boolean withdraw() {
+			for (long current = this.tokens.get(); current >= ActualInvoker.BUDGET_UNIT; current = this.tokens.get()) {
+				if (this.tokens.compareAndSet(current, current - ActualInvoker.BUDGET_UNIT)) {
+					return true;
+				}
+			}
+			return false;
+		}
 	}
 
-	private void timeout(long timestamp, Request request, KeplerRoutingException exception) {
-		if ((System.currentTimeMillis() - timestamp) > this.timeout) {
-			// 服务丢失异常
-			this.trace.put(request, exception);
-			throw exception;
+	/**
+	 * 单次调用(含重试). 同步调用在当前线程退避, 异步调用通过时间轮调度并返回FutureDelegate
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private class Retry implements TimerTask, Runnable {
+
+		/**
+		 * 本次执行起始时间
+		 */
+		private final long timestamp = System.currentTimeMillis();
+
+		private final Request request;
+
+		private final Method method;
+
+		private final Budget budget;
+
+		/**
+		 * 已尝试主机
+		 */
+		private List<Host> excluded;
+
+		/**
+		 * 异步重试时返回的Future
+		 */
+		private FutureDelegate future;
+
+		private int attempt;
+
+		private Retry(Request request, Method method) {
+			super();
+			this.request = request;
+			this.method = method;
+			this.budget = ActualInvoker.this.budget(request.service());
+			this.budget.deposit();
+		}
+
+		public boolean scheduled() {
+			return this.future != null;
+		}
+
+		private Host route() {
+			if (this.excluded == null) {
+				return ActualInvoker.this.router.host(this.request);
+			}
+			ActualInvoker.this.exclude.exclude(this.excluded);
+			try {
+				// 重试仅在剩余主机中按权重随机选择, 不经过LoadBalance(避免以子集重建共享路由表)
+				return this.select(new ArrayList<Host>(ActualInvoker.this.router.hosts(this.request)));
+			} finally {
+				ActualInvoker.this.exclude.release();
+			}
+		}
+
+		/**
+		 * 按优先级加权随机, 优先级均为0时均匀随机
+		 * 
+		 * @param hosts 非空(Router保证)
+		 * @return
+		 */
+		private Host select(List<Host> hosts) {
+			int total = 0;
+			for (Host each : hosts) {
+				total += Math.max(each.priority(), 0);
+			}
+			if (total <= 0) {
+				return hosts.get(ThreadLocalRandom.current().nextInt(hosts.size()));
+			}
+			int random = ThreadLocalRandom.current().nextInt(total);
+			for (Host each : hosts) {
+				if ((random -= Math.max(each.priority(), 0)) < 0) {
+					return each;
+				}
+			}
+			return hosts.get(hosts.size() - 1);
+		}
+
+		public Object invoke() throws Throwable {
+			Host host = null;
+			try {
+				host = this.route();
+				Request request = ActualInvoker.this.processor.before(this.request, host);
+				return ActualInvoker.this.channels.get(host).invoke(request, this.method);
+			} catch (KeplerException exception) {
+				if (!ActualInvoker.this.retryable(exception)) {
+					ActualInvoker.this.trace.put(this.request, exception);
+					throw exception;
+				}
+				// 路由异常存在Mocker则使用Mocker(仅同步阶段)
+				Mocker mocker = KeplerRoutingException.class.isAssignableFrom(exception.getClass()) && !this.scheduled() ? ActualInvoker.this.mocker.get(this.request.service()) : null;
+				return mocker != null ? mocker.mock(this.request) : this.retry(host, exception);
+			} catch (Throwable throwable) {
+				ActualInvoker.this.trace.put(this.request, throwable);
+				throw throwable;
+			}
+		}
+
+		private Object retry(Host host, KeplerException exception) throws Throwable {
+			// 是否终止重试
+			this.check(exception);
+			if (host != null) {
+				this.excluded = this.excluded != null ? this.excluded : new ArrayList<Host>();
+				this.excluded.add(host);
+			}
+			long delay = ActualInvoker.this.backoff(this.attempt++);
+			ActualInvoker.LOGGER.warn("Warning: " + exception.getMessage() + " then retry after " + delay + "ms (" + this.attempt + ") ... ");
+			if (this.request.async()) {
+				this.future = this.future != null ? this.future : new FutureDelegate();
+				ActualInvoker.this.timer.timeout(this, delay);
+				return this.future;
+			}
+			Thread.sleep(delay);
+			return this.invoke();
+		}
+
+		private void check(KeplerException exception) {
+			if ((System.currentTimeMillis() - this.timestamp) > ActualInvoker.this.timeout) {
+				ActualInvoker.this.trace.put(this.request, exception);
+				throw exception;
+			}
+			if (!this.budget.withdraw()) {
+				ActualInvoker.LOGGER.warn("Retry budget exhausted for " + this.request.service() + " ... ");
+				ActualInvoker.this.trace.put(this.request, exception);
+				throw exception;
+			}
+		}
+
+		/**
+		 * 时间轮回调, 切换至线程池执行. 线程池饱和则直接失败
+		 */
+		@Override
+		public void run(Timeout timeout) throws Exception {
+			try {
+				ActualInvoker.this.threads.execute(this);
+			} catch (RejectedExecutionException exception) {
+				ActualInvoker.LOGGER.warn(exception.getMessage());
+				this.future.release(new KeplerBusyException(exception.getMessage()));
+				ActualInvoker.this.clean(this.request);
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void run() {
+			try {
+				Object response = this.invoke();
+				// 再次调度则等待下次执行
+				if (response == this.future) {
+					return;
+				}
+				this.future.binding(Future.class.cast(response));
+			} catch (KeplerRemoteException exception) {
+				this.future.release(ActualInvoker.this.cause(exception));
+			} catch (Throwable throwable) {
+				this.future.release(throwable);
+			}
+			ActualInvoker.this.clean(this.request);
 		}
 	}
 }
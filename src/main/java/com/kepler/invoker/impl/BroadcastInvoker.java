@@ -139,7 +139,7 @@ public class BroadcastInvoker implements Imported, Invoker {
 			return null;
 		} catch (Throwable throwable) {
 			// 是否回调Cancel
-			if (PropertiesUtils.profile(this.profile.profile(request.service()), BroadcastInvoker.CANCEL_KEY, BroadcastInvoker.CANCEL_DEF)) {
+			if (this.profile.get(request.service(), BroadcastInvoker.CANCEL_KEY, BroadcastInvoker.CANCEL_DEF)) {
 				// 尝试取消剩余任务
 				for (Future<Object> each : futures) {
 					// Future.cancel本身不抛出异常
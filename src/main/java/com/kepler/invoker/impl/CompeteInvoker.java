@@ -135,7 +135,7 @@ public class CompeteInvoker implements Imported, Invoker {
 			super(executor);
 			this.request = request;
 			// 计算Future数量. 指定Span与最大主机数量的最小值
-			this.futures = new Future[Math.min(CompeteInvoker.this.router.hosts(this.request).size(), PropertiesUtils.profile(CompeteInvoker.this.profile.profile(this.request.service()), CompeteInvoker.SPAN, Compete.class.cast(CompeteInvoker.this.competed.get(this.request.service(), this.request.method())).span()))];
+			this.futures = new Future[Math.min(CompeteInvoker.this.router.hosts(this.request).size(), CompeteInvoker.this.profile.get(this.request.service(), CompeteInvoker.SPAN, Compete.class.cast(CompeteInvoker.this.competed.get(this.request.service(), this.request.method())).span()))];
 		}
 
 		public int capacity() {
@@ -152,7 +152,7 @@ public class CompeteInvoker implements Imported, Invoker {
 				return super.take().get();
 			} finally {
 				// 是否回调Cancel
-				if (PropertiesUtils.profile(CompeteInvoker.this.profile.profile(this.request.service()), CompeteInvoker.CANCEL_KEY, CompeteInvoker.CANCEL_DEF)) {
+				if (CompeteInvoker.this.profile.get(this.request.service(), CompeteInvoker.CANCEL_KEY, CompeteInvoker.CANCEL_DEF)) {
 					// 尝试取消剩余任务
 					for (Future<Object> each : this.futures) {
 						// Future.cancel本身不抛出异常
@@ -48,7 +48,7 @@ public class DemoteInvoker implements Invoker {
 	@Override
 	public Object invoke(Request request, Method method) throws Throwable {
 		// 开启Demote则尝试
-		return PropertiesUtils.profile(this.profile.profile(request.service()), DemoteInvoker.DEMOTE_KEY, DemoteInvoker.DEMOTE_DEF) ? this.demote(request) : Invoker.EMPTY;
+		return this.profile.get(request.service(), DemoteInvoker.DEMOTE_KEY, DemoteInvoker.DEMOTE_DEF) ? this.demote(request) : Invoker.EMPTY;
 	}
 
 	private Object demote(Request request) throws Exception {
@@ -5,15 +5,19 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import com.kepler.KeplerLocalException;
+import com.kepler.KeplerLimitException;
 import com.kepler.config.Profile;
 import com.kepler.config.PropertiesUtils;
 import com.kepler.invoker.Invoker;
+import com.kepler.limit.Limits;
 import com.kepler.protocol.Request;
 import com.kepler.service.Imported;
 import com.kepler.service.Service;
+import com.kepler.thread.FutureListener;
+import com.kepler.thread.FuturePromise;
 
 /**
  * @author kim
@@ -32,10 +36,17 @@ public class MainInvoker implements Imported, Invoker {
 	 */
 	public static final String THRESHOLD_ENABLED_KEY = MainInvoker.class.getName().toLowerCase() + ".threshold_enabled";
 
+	/**
+	 * 是否使用自适应并发限制(阀值作为上限)
+	 */
+	public static final String THRESHOLD_ADAPTIVE_KEY = MainInvoker.class.getName().toLowerCase() + ".threshold_adaptive";
+
 	private static final int THRESHOLD_DEF = PropertiesUtils.get(MainInvoker.THRESHOLD_KEY, Integer.MAX_VALUE);
 
 	private static final boolean THRESHOLD_ENABLED_DEF = PropertiesUtils.get(MainInvoker.THRESHOLD_ENABLED_KEY, false);
 
+	private static final boolean THRESHOLD_ADAPTIVE_DEF = PropertiesUtils.get(MainInvoker.THRESHOLD_ADAPTIVE_KEY, false);
+
 	/**
 	 * 取代Semaphore, Failed Fast
 	 */
@@ -45,8 +56,11 @@ public class MainInvoker implements Imported, Invoker {
 
 	private final Profile profile;
 
-	public MainInvoker(Profile profile, List<Invoker> invokers) {
+	private final Limits limits;
+
+	public MainInvoker(Profile profile, Limits limits, List<Invoker> invokers) {
 		super();
+		this.limits = limits;
 		this.profile = profile;
 		this.actived(invokers);
 	}
@@ -81,7 +95,7 @@ public class MainInvoker implements Imported, Invoker {
 	@Override
 	public Object invoke(Request request, Method method) throws Throwable {
 		// 是否开启了流控
-		return PropertiesUtils.profile(this.profile.profile(request.service()), MainInvoker.THRESHOLD_ENABLED_KEY, MainInvoker.THRESHOLD_ENABLED_DEF) ? this.check(request, method) : this.uncheck(request, method);
+		return this.profile.get(request.service(), MainInvoker.THRESHOLD_ENABLED_KEY, MainInvoker.THRESHOLD_ENABLED_DEF) ? this.check(request, method) : this.uncheck(request, method);
 	}
 
 	/**
@@ -92,13 +106,55 @@ public class MainInvoker implements Imported, Invoker {
 	 * @throws Throwable
 	 */
 	private Object check(Request request, Method method) throws Throwable {
+		int threshold = this.profile.get(request.service(), MainInvoker.THRESHOLD_KEY, MainInvoker.THRESHOLD_DEF);
+		return this.profile.get(request.service(), MainInvoker.THRESHOLD_ADAPTIVE_KEY, MainInvoker.THRESHOLD_ADAPTIVE_DEF) ? this.adaptive(request, method, threshold) : this.fixed(request, method, threshold);
+	}
+
+	/**
+	 * 自适应并发限制, 上限随RTT调整
+	 * 
+	 * @param request
+	 * @param method
+	 * @param threshold
+	 * @return
+	 * @throws Throwable
+	 */
+	private Object adaptive(Request request, Method method, int threshold) throws Throwable {
+		// Failed Fast
+		this.limits.acquire(request.service(), threshold);
+		Object response = null;
+		try {
+			response = this.uncheck(request, method);
+		} catch (Throwable throwable) {
+			this.limits.release(request.service());
+			throw throwable;
+		}
+		// 异步请求在Future完成(成功, 异常, 超时或取消)时释放, 同步请求或无法监听的Future立即释放
+		if (request.async() && response instanceof FuturePromise && FuturePromise.class.cast(response).listenable()) {
+			FuturePromise.class.cast(response).listener(new Release(request.service()), null);
+		} else {
+			this.limits.release(request.service());
+		}
+		return response;
+	}
+
+	/**
+	 * 静态阀值
+	 * 
+	 * @param request
+	 * @param method
+	 * @param threshold
+	 * @return
+	 * @throws Throwable
+	 */
+	private Object fixed(Request request, Method method, int threshold) throws Throwable {
 		try {
 			// 是否超过阀值
-			if (this.limit.get(request.service()).incrementAndGet() < PropertiesUtils.profile(this.profile.profile(request.service()), MainInvoker.THRESHOLD_KEY, MainInvoker.THRESHOLD_DEF)) {
+			if (this.limit.get(request.service()).incrementAndGet() < threshold) {
 				return this.uncheck(request, method);
 			}
 			// Failed Fast
-			throw new KeplerLocalException("ThresholdInvoker have not enough resources (" + this.limit.get(request.service()).get() + ") ... ");
+			throw new KeplerLimitException("ThresholdInvoker have not enough resources (" + this.limit.get(request.service()).get() + ") ... ");
 		} finally {
 			// 释放
 			this.limit.get(request.service()).decrementAndGet();
@@ -121,4 +177,25 @@ public class MainInvoker implements Imported, Invoker {
 		}
 		return null;
 	}
+
+	/**
+	 * 异步请求完成后释放服务级许可
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class Release implements FutureListener {
+
+		private final Service service;
+
+		private Release(Service service) {
+			super();
+			this.service = service;
+		}
+
+		@Override
+		public void complete(Future<Object> future) {
+			MainInvoker.this.limits.release(this.service);
+		}
+	}
 }
@@ -0,0 +1,123 @@
+package com.kepler.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kepler.config.PropertiesUtils;
+
+/**
+ * 自适应并发限制(Gradient), 依据长期RTT与本次RTT的比值调整并发上限, 超时则乘性下降
+ * 
+ * @author KimShen
+ *
+ */
+public class AdaptiveLimit {
+
+	/**
+	 * 初始并发
+	 */
+	private static final int INITIAL = PropertiesUtils.get(AdaptiveLimit.class.getName().toLowerCase() + ".initial", 20);
+
+	private static final int MIN = PropertiesUtils.get(AdaptiveLimit.class.getName().toLowerCase() + ".min", 4);
+
+	private static final int MAX = PropertiesUtils.get(AdaptiveLimit.class.getName().toLowerCase() + ".max", 1000);
+
+	/**
+	 * 可容忍RTT增长倍数, 低于该倍数时不下调
+	 */
+	private static final double TOLERANCE = PropertiesUtils.get(AdaptiveLimit.class.getName().toLowerCase() + ".tolerance", 1.5);
+
+	/**
+	 * 平滑因子, 越大调整越快
+	 */
+	private static final double SMOOTHING = PropertiesUtils.get(AdaptiveLimit.class.getName().toLowerCase() + ".smoothing", 0.2);
+
+	/**
+	 * 超时后下调比例
+	 */
+	private static final double BACKOFF = PropertiesUtils.get(AdaptiveLimit.class.getName().toLowerCase() + ".backoff", 0.9);
+
+	/**
+	 * 长期RTT(EWMA)的样本窗口
+	 */
+	private static final double WINDOW = 2.0 / (PropertiesUtils.get(AdaptiveLimit.class.getName().toLowerCase() + ".window", 600) + 1);
+
+	private final AtomicInteger inflight = new AtomicInteger();
+
+	/**
+	 * 当前并发上限(Estimate取整)
+	 */
+	volatile private int limit = Math.max(Math.min(AdaptiveLimit.INITIAL, AdaptiveLimit.MAX), AdaptiveLimit.MIN);
+
+	private double estimate = this.limit;
+
+	/**
+	 * 长期RTT(纳秒)
+	 */
+	private double rtt;
+
+	/**
+	 * 获取许可
+	 * 
+	 * @param threshold 静态上限
+	 * @return 是否成功
+	 */
+	public boolean acquire(int threshold) {
+		int limit = Math.min(this.limit, threshold);
+		for (int current = this.inflight.get(); current < limit; current = this.inflight.get()) {
+			if (this.inflight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void release() {
+		this.inflight.decrementAndGet();
+	}
+
+	/**
+	 * 完成采样
+	 * 
+	 * @param elapse 耗时(纳秒)
+	 * @param dropped 是否超时
+	 */
+	public void sample(long elapse, boolean dropped) {
+		synchronized (this) {
+			if (dropped) {
+				this.update(this.estimate * AdaptiveLimit.BACKOFF);
+				return;
+			}
+			double sample = Math.max(elapse, 1);
+			this.rtt = this.rtt == 0 ? sample : this.rtt + AdaptiveLimit.WINDOW * (sample - this.rtt);
+			// 负载回落后长期RTT偏高, 逐步回收
+			if (this.rtt / sample > 2) {
+				this.rtt *= 0.95;
+			}
+			// 并发未充分使用时样本无法说明上限不足, 不上调
+			if (this.inflight.get() < this.estimate / 2) {
+				return;
+			}
+			double gradient = Math.max(0.5, Math.min(1.0, AdaptiveLimit.TOLERANCE * this.rtt / sample));
+			// Sqrt(Estimate)作为允许排队的余量, 用于探测更高并发
+			double next = this.estimate * gradient + Math.sqrt(this.estimate);
+			this.update(this.estimate * (1 - AdaptiveLimit.SMOOTHING) + next * AdaptiveLimit.SMOOTHING);
+		}
+	}
+
+	private void update(double estimate) {
+		this.estimate = Math.max(AdaptiveLimit.MIN, Math.min(AdaptiveLimit.MAX, estimate));
+		this.limit = (int) this.estimate;
+	}
+
+	public int limit() {
+		return this.limit;
+	}
+
+	public int inflight() {
+		return this.inflight.get();
+	}
+
+	public String toString() {
+		return "[limit=" + this.limit + "][inflight=" + this.inflight.get() + "]";
+	}
+}
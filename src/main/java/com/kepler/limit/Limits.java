@@ -0,0 +1,142 @@
+package com.kepler.limit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.kepler.KeplerLimitException;
+import com.kepler.config.Profile;
+import com.kepler.config.PropertiesUtils;
+import com.kepler.host.Host;
+import com.kepler.service.Service;
+
+/**
+ * 服务级及主机级自适应并发限制, 样本来自AckFuture完成
+ * 
+ * @author KimShen
+ *
+ */
+public class Limits {
+
+	/**
+	 * 是否开启主机级限制
+	 */
+	public static final String HOST_KEY = Limits.class.getName().toLowerCase() + ".host";
+
+	private static final boolean HOST_DEF = PropertiesUtils.get(Limits.HOST_KEY, false);
+
+	private final ConcurrentMap<Service, AdaptiveLimit> services = new ConcurrentHashMap<Service, AdaptiveLimit>();
+
+	private final ConcurrentMap<Service, ConcurrentMap<Host, AdaptiveLimit>> hosts = new ConcurrentHashMap<Service, ConcurrentMap<Host, AdaptiveLimit>>();
+
+	private final Profile profile;
+
+	public Limits(Profile profile) {
+		super();
+		this.profile = profile;
+	}
+
+	private AdaptiveLimit service(Service service) {
+		AdaptiveLimit limit = this.services.get(service);
+		if (limit == null) {
+			AdaptiveLimit created = new AdaptiveLimit();
+			limit = this.services.putIfAbsent(service, created);
+			limit = limit != null ? limit : created;
+		}
+		return limit;
+	}
+
+	private AdaptiveLimit host(Service service, Host host) {
+		ConcurrentMap<Host, AdaptiveLimit> hosts = this.hosts.get(service);
+		if (hosts == null) {
+			ConcurrentMap<Host, AdaptiveLimit> created = new ConcurrentHashMap<Host, AdaptiveLimit>();
+			hosts = this.hosts.putIfAbsent(service, created);
+			hosts = hosts != null ? hosts : created;
+		}
+		AdaptiveLimit limit = hosts.get(host);
+		if (limit == null) {
+			AdaptiveLimit created = new AdaptiveLimit();
+			limit = hosts.putIfAbsent(host, created);
+			limit = limit != null ? limit : created;
+		}
+		return limit;
+	}
+
+	/**
+	 * 服务级许可, 失败则抛出KeplerLimitException
+	 * 
+	 * @param service
+	 * @param threshold 静态上限
+	 */
+	public void acquire(Service service, int threshold) {
+		AdaptiveLimit limit = this.service(service);
+		if (!limit.acquire(threshold)) {
+			throw new KeplerLimitException("Service " + service + " reached concurrency limit " + limit);
+		}
+	}
+
+	public void release(Service service) {
+		this.service(service).release();
+	}
+
+	/**
+	 * 主机级许可, 失败则抛出KeplerLimitException
+	 * 
+	 * @param service
+	 * @param host
+	 * @return 已获取的许可, 未开启主机级限制则返回Null
+	 */
+	public AdaptiveLimit acquire(Service service, Host host) {
+		if (!this.profile.get(service, Limits.HOST_KEY, Limits.HOST_DEF)) {
+			return null;
+		}
+		AdaptiveLimit limit = this.host(service, host);
+		if (!limit.acquire(Integer.MAX_VALUE)) {
+			throw new KeplerLimitException("Service " + service + " to " + host.address() + " reached concurrency limit " + limit);
+		}
+		return limit;
+	}
+
+	/**
+	 * 请求取消(Compete/Broadcast落选), 耗时不代表服务延迟, 仅释放主机级许可
+	 * 
+	 * @param host 主机级许可, 可为Null
+	 */
+	public void cancel(AdaptiveLimit host) {
+		if (host != null) {
+			host.release();
+		}
+	}
+
+	/**
+	 * 主机下线, 移除主机级限制(未完成请求仍持有原许可并正常释放)
+	 * 
+	 * @param service
+	 * @param host
+	 */
+	public void remove(Service service, Host host) {
+		ConcurrentMap<Host, AdaptiveLimit> hosts = this.hosts.get(service);
+		if (hosts != null) {
+			hosts.remove(host);
+		}
+	}
+
+	/**
+	 * 请求完成, 采样并释放主机级许可
+	 * 
+	 * @param service
+	 * @param host 主机级许可, 可为Null
+	 * @param elapse 耗时(纳秒)
+	 * @param dropped 是否超时
+	 */
+	public void end(Service service, AdaptiveLimit host, long elapse, boolean dropped) {
+		// 仅为开启服务级限制的服务采样
+		AdaptiveLimit limit = this.services.get(service);
+		if (limit != null) {
+			limit.sample(elapse, dropped);
+		}
+		if (host != null) {
+			host.sample(elapse, dropped);
+			host.release();
+		}
+	}
+}
@@ -1,8 +1,8 @@
 package com.kepler.method.impl;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -19,19 +19,13 @@ public class CachedMethods implements Methods {
 	private static final Log LOGGER = LogFactory.getLog(CachedMethods.class);
 
 	/**
-	 * 缓存方法
+	 * 缓存方法(并发加载时允许重复解析)
 	 */
-	private final Map<CacheKeys, MethodInfo> c_classes = new HashMap<CacheKeys, MethodInfo>();
+	private final ConcurrentMap<CacheKeys, MethodInfo> c_classes = new ConcurrentHashMap<CacheKeys, MethodInfo>();
 
-	private final Map<CacheKeys, MethodInfo> c_names = new HashMap<CacheKeys, MethodInfo>();
+	private final ConcurrentMap<CacheKeys, MethodInfo> c_names = new ConcurrentHashMap<CacheKeys, MethodInfo>();
 
-	private final Map<CacheKey, MethodInfo> c_size = new HashMap<CacheKey, MethodInfo>();
-
-	private final Object l_classes = new Object();
-
-	private final Object l_names = new Object();
-
-	private final Object l_size = new Object();
+	private final ConcurrentMap<CacheKey, MethodInfo> c_size = new ConcurrentHashMap<CacheKey, MethodInfo>();
 
 	private final Methods methods;
 
@@ -46,16 +40,13 @@ public class CachedMethods implements Methods {
 		if (actual != null) {
 			return actual;
 		}
-		synchronized (this.l_classes) {
-			MethodInfo cached = this.c_classes.get(key);
-			if (cached != null) {
-				return cached;
-			}
-			MethodInfo refresh = this.methods.method(service, method, classes);
-			this.c_classes.put(key, refresh);
-			CachedMethods.LOGGER.warn("Refresh method cache: [service=" + service + "][actual=" + refresh + "]");
-			return refresh;
+		MethodInfo refresh = this.methods.method(service, method, classes);
+		MethodInfo cached = this.c_classes.putIfAbsent(key, refresh);
+		if (cached != null) {
+			return cached;
 		}
+		CachedMethods.LOGGER.warn("Refresh method cache: [service=" + service + "][actual=" + refresh + "]");
+		return refresh;
 	}
 
 	@Override
@@ -65,16 +56,13 @@ public class CachedMethods implements Methods {
 		if (actual != null) {
 			return actual;
 		}
-		synchronized (this.l_names) {
-			MethodInfo cached = this.c_names.get(key);
-			if (cached != null) {
-				return cached;
-			}
-			MethodInfo refresh = this.methods.method(instance, method, names);
-			this.c_names.put(key, refresh);
-			CachedMethods.LOGGER.warn("Refresh method cache: [service=" + instance.getClass() + "][actual=" + refresh + "]");
-			return refresh;
+		MethodInfo refresh = this.methods.method(instance, method, names);
+		MethodInfo cached = this.c_names.putIfAbsent(key, refresh);
+		if (cached != null) {
+			return cached;
 		}
+		CachedMethods.LOGGER.warn("Refresh method cache: [service=" + instance.getClass() + "][actual=" + refresh + "]");
+		return refresh;
 	}
 
 	@Override
@@ -84,16 +72,13 @@ public class CachedMethods implements Methods {
 		if (actual != null) {
 			return actual;
 		}
-		synchronized (this.l_size) {
-			MethodInfo cached = this.c_size.get(key);
-			if (cached != null) {
-				return cached;
-			}
-			MethodInfo refresh = this.methods.method(service, method, size);
-			this.c_size.put(key, refresh);
-			CachedMethods.LOGGER.warn("Refresh method cache: [service=" + service + "][actual=" + refresh + "]");
-			return refresh;
+		MethodInfo refresh = this.methods.method(service, method, size);
+		MethodInfo cached = this.c_size.putIfAbsent(key, refresh);
+		if (cached != null) {
+			return cached;
 		}
+		CachedMethods.LOGGER.warn("Refresh method cache: [service=" + service + "][actual=" + refresh + "]");
+		return refresh;
 	}
 
 	/**
@@ -110,6 +95,8 @@ public class CachedMethods implements Methods {
 
 		private String method;
 
+		private int hash;
+
 		private CacheKeys() {
 		}
 
@@ -128,14 +115,17 @@ public class CachedMethods implements Methods {
 		}
 
 		public int hashCode() {
-			int hash = 0;
-			hash = hash ^ this.service.hashCode() ^ this.method.hashCode();
-			if (this.addition != null) {
-				for (Object each : this.addition) {
-					if (each != null) {
-						hash = hash ^ each.hashCode();
+			int hash = this.hash;
+			if (hash == 0) {
+				hash = hash ^ this.service.hashCode() ^ this.method.hashCode();
+				if (this.addition != null) {
+					for (Object each : this.addition) {
+						if (each != null) {
+							hash = hash ^ each.hashCode();
+						}
 					}
 				}
+				this.hash = hash;
 			}
 			return hash;
 		}
@@ -55,7 +55,7 @@ public class DefaultMockerContext implements ApplicationContextAware, Initializi
 	@Override
 	public Mocker get(Service service) throws KeplerRoutingException {
 		// 如果开启Mock则获取
-		return PropertiesUtils.profile(this.profile.profile(service), DefaultMockerContext.MOCK_KEY, this.mock) ? this.getAndWarning(service) : null;
+		return this.profile.get(service, DefaultMockerContext.MOCK_KEY, this.mock) ? this.getAndWarning(service) : null;
 	}
 
 	private Mocker getAndWarning(Service service) {
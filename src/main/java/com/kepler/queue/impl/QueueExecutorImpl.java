@@ -3,28 +3,41 @@ package com.kepler.queue.impl;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.kepler.admin.status.Status;
 import com.kepler.annotation.Queue;
+import com.kepler.config.ConfigAware;
 import com.kepler.config.Profile;
 import com.kepler.config.PropertiesUtils;
+import com.kepler.org.apache.commons.lang.StringUtils;
 import com.kepler.protocol.Request;
 import com.kepler.queue.QueueExecutor;
+import com.kepler.queue.QueuePolicy;
 import com.kepler.queue.QueueRegister;
 import com.kepler.queue.QueueRunnable;
 import com.kepler.service.Service;
 import com.kepler.thread.ThreadShutdown;
 
+import io.netty.util.concurrent.DefaultThreadFactory;
+
 /**
+ * 服务/方法级隔离(Bulkhead), 支持线程池隔离及信号量隔离
+ *
  * @author KimShen
  *
  */
-public class QueueExecutorImpl extends ThreadShutdown implements QueueExecutor, QueueRegister {
+public class QueueExecutorImpl extends ThreadShutdown implements QueueExecutor, QueueRegister, ConfigAware, Status {
 
 	private static final String THREAD_KEEPALIVE_KEY = QueueExecutorImpl.class.getName().toLowerCase() + ".keepalive";
 
@@ -34,6 +47,16 @@ public class QueueExecutorImpl extends ThreadShutdown implements QueueExecutor,
 
 	private static final String THREAD_MAX_KEY = QueueExecutorImpl.class.getName().toLowerCase() + ".max";
 
+	/**
+	 * 隔离方式, thread(线程池) 或 semaphore(信号量, 在当前线程执行)
+	 */
+	private static final String ISOLATION_KEY = QueueExecutorImpl.class.getName().toLowerCase() + ".isolation";
+
+	/**
+	 * 需要独立隔离的方法, 逗号分隔. 方法级配置为[key].[method], 不存在则使用服务级配置
+	 */
+	private static final String METHODS_KEY = QueueExecutorImpl.class.getName().toLowerCase() + ".methods";
+
 	private static final int THREAD_CORE_DEF = PropertiesUtils.get(QueueExecutorImpl.THREAD_CORE_KEY, Math.max(Runtime.getRuntime().availableProcessors() * 2, 16));
 
 	private static final int THREAD_MAX_DEF = PropertiesUtils.get(QueueExecutorImpl.THREAD_MAX_KEY, QueueExecutorImpl.THREAD_CORE_DEF * 2);
@@ -42,6 +65,10 @@ public class QueueExecutorImpl extends ThreadShutdown implements QueueExecutor,
 
 	private static final int THREAD_QUEUE_DEF = PropertiesUtils.get(QueueExecutorImpl.THREAD_QUEUE_KEY, 50);
 
+	private static final String ISOLATION_DEF = PropertiesUtils.get(QueueExecutorImpl.ISOLATION_KEY, "thread");
+
+	private static final String ISOLATION_SEMAPHORE = "semaphore";
+
 	/**
 	 * 是否使用ShutdownNow
 	 */
@@ -56,7 +83,7 @@ public class QueueExecutorImpl extends ThreadShutdown implements QueueExecutor,
 
 	private static final Log LOGGER = LogFactory.getLog(QueueExecutorImpl.class);
 
-	private final Map<Service, ExecutorService> executors = new HashMap<Service, ExecutorService>();
+	private final Map<Service, Bulkheads> bulkheads = new ConcurrentHashMap<Service, Bulkheads>();
 
 	private final Profile profile;
 
@@ -66,33 +93,80 @@ public class QueueExecutorImpl extends ThreadShutdown implements QueueExecutor,
 	}
 
 	public void destroy() throws Exception {
-		for (Service each : this.executors.keySet()) {
-			this.destroy(this.executors.get(each));
+		for (Bulkheads each : this.bulkheads.values()) {
+			each.destroy();
 		}
 	}
 
 	@Override
 	public void register(Service service, Queue queue) {
 		if (QueueExecutorImpl.ACTIVED && queue != null) {
-			int size = queue.queue() != 0 ? queue.queue() : PropertiesUtils.profile(this.profile.profile(service), QueueExecutorImpl.THREAD_QUEUE_KEY, QueueExecutorImpl.THREAD_QUEUE_DEF);
-			int core = queue.core() != 0 ? queue.core() : PropertiesUtils.profile(this.profile.profile(service), QueueExecutorImpl.THREAD_CORE_KEY, QueueExecutorImpl.THREAD_CORE_DEF);
-			int max = queue.max() != 0 ? queue.max() : PropertiesUtils.profile(this.profile.profile(service), QueueExecutorImpl.THREAD_MAX_KEY, QueueExecutorImpl.THREAD_MAX_DEF);
-			this.executors.put(service, new ThreadPoolExecutor(core, max, QueueExecutorImpl.THREAD_KEEPALIVE_DEF, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(size), queue.policy().handler()));
-			QueueExecutorImpl.LOGGER.info("[register][service=" + service.service() + "][version=" + service.version() + "][catalog=" + service.catalog() + "][queue=" + queue + "][core=" + core + "][max=" + max + "]");
+			Bulkheads bulkheads = new Bulkheads(this.bulkhead(service, queue, null));
+			for (String method : StringUtils.split(this.profile.get(service, QueueExecutorImpl.METHODS_KEY, ""), ",")) {
+				bulkheads.methods.put(method.trim(), this.bulkhead(service, queue, method.trim()));
+			}
+			this.bulkheads.put(service, bulkheads);
 		}
 	}
 
+	/**
+	 * 创建服务级(Method = null)或方法级隔离
+	 *
+	 * @param service
+	 * @param queue
+	 * @param method
+	 * @return
+	 */
+	private Bulkhead bulkhead(Service service, Queue queue, String method) {
+		Bulkhead bulkhead = ISOLATION_SEMAPHORE.equalsIgnoreCase(this.isolation(service, method)) ? new SemaphoreBulkhead(service, queue, method) : new ThreadBulkhead(service, queue, method);
+		QueueExecutorImpl.LOGGER.info("[register][service=" + service.service() + "][version=" + service.version() + "][catalog=" + service.catalog() + "][method=" + method + "][bulkhead=" + bulkhead + "]");
+		return bulkhead;
+	}
+
+	private String isolation(Service service, String method) {
+		String isolation = this.profile.get(service, QueueExecutorImpl.ISOLATION_KEY, QueueExecutorImpl.ISOLATION_DEF);
+		return method != null ? this.profile.get(service, QueueExecutorImpl.ISOLATION_KEY + "." + method, isolation) : isolation;
+	}
+
+	/**
+	 * 方法级配置 -> 服务级配置 -> 注解 -> 默认
+	 *
+	 * @param service
+	 * @param method
+	 * @param key
+	 * @param annotation
+	 * @param def
+	 * @return
+	 */
+	private int config(Service service, String method, String key, int annotation, int def) {
+		int value = this.profile.get(service, key, annotation != 0 ? annotation : def);
+		return method != null ? this.profile.get(service, key + "." + method, value) : value;
+	}
+
 	@Override
 	public boolean executor(Request request, QueueRunnable runnable) {
-		if (QueueExecutorImpl.ACTIVED) {
+		if (!QueueExecutorImpl.ACTIVED) {
 			return false;
 		}
-		ExecutorService executor = this.executors.get(request.service());
-		if (executor != null) {
-			executor.execute(new ProxyRunnable(runnable));
-			return true;
+		Bulkheads bulkheads = this.bulkheads.get(request.service());
+		return bulkheads != null ? bulkheads.get(request.method()).execute(runnable) : false;
+	}
+
+	@Override
+	public void changed(Map<String, String> current, Map<String, String> newconfig) {
+		// 配置已生效, 重新计算并调整
+		for (Bulkheads each : this.bulkheads.values()) {
+			each.resize();
+		}
+	}
+
+	@Override
+	public Map<String, Object> get() {
+		Map<String, Object> status = new HashMap<String, Object>();
+		for (Bulkheads each : this.bulkheads.values()) {
+			each.status(status);
 		}
-		return false;
+		return status;
 	}
 
 	@Override
@@ -105,6 +179,290 @@ public class QueueExecutorImpl extends ThreadShutdown implements QueueExecutor,
 		return QueueExecutorImpl.SHUTDOWN_INTERVAL;
 	}
 
+	/**
+	 * 服务级及方法级隔离
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private class Bulkheads {
+
+		private final Map<String, Bulkhead> methods = new HashMap<String, Bulkhead>();
+
+		private final Bulkhead service;
+
+		private Bulkheads(Bulkhead service) {
+			this.service = service;
+		}
+
+		public Bulkhead get(String method) {
+			Bulkhead bulkhead = this.methods.get(method);
+			return bulkhead != null ? bulkhead : this.service;
+		}
+
+		public void resize() {
+			this.service.resize();
+			for (Bulkhead each : this.methods.values()) {
+				each.resize();
+			}
+		}
+
+		public void status(Map<String, Object> status) {
+			this.service.status(status);
+			for (Bulkhead each : this.methods.values()) {
+				each.status(status);
+			}
+		}
+
+		public void destroy() throws Exception {
+			this.service.destroy();
+			for (Bulkhead each : this.methods.values()) {
+				each.destroy();
+			}
+		}
+	}
+
+	abstract private class Bulkhead {
+
+		/**
+		 * 累计拒绝数量
+		 */
+		protected final AtomicLong rejected = new AtomicLong();
+
+		protected final Service service;
+
+		protected final String method;
+
+		protected final Queue queue;
+
+		/**
+		 * 上次汇报时的拒绝数量
+		 */
+		private long reported;
+
+		protected Bulkhead(Service service, Queue queue, String method) {
+			this.service = service;
+			this.method = method;
+			this.queue = queue;
+		}
+
+		protected int core() {
+			return QueueExecutorImpl.this.config(this.service, this.method, QueueExecutorImpl.THREAD_CORE_KEY, this.queue.core(), QueueExecutorImpl.THREAD_CORE_DEF);
+		}
+
+		protected int max() {
+			return QueueExecutorImpl.this.config(this.service, this.method, QueueExecutorImpl.THREAD_MAX_KEY, this.queue.max(), QueueExecutorImpl.THREAD_MAX_DEF);
+		}
+
+		protected int size() {
+			return QueueExecutorImpl.this.config(this.service, this.method, QueueExecutorImpl.THREAD_QUEUE_KEY, this.queue.queue(), QueueExecutorImpl.THREAD_QUEUE_DEF);
+		}
+
+		/**
+		 * 状态前缀, bulkhead_[service]_[version]_[method|*]
+		 *
+		 * @return
+		 */
+		private String prefix() {
+			return "bulkhead_" + this.service.service() + "_" + this.service.versionAndCatalog() + "_" + (this.method != null ? this.method : "*");
+		}
+
+		public void status(Map<String, Object> status) {
+			String prefix = this.prefix();
+			long rejected = this.rejected.get();
+			status.put(prefix + "_active", this.active());
+			status.put(prefix + "_queue", this.waiting());
+			status.put(prefix + "_rejected", rejected - this.reported);
+			this.reported = rejected;
+		}
+
+		/**
+		 * 执行, 返回是否已接管
+		 *
+		 * @param runnable
+		 * @return
+		 */
+		abstract public boolean execute(QueueRunnable runnable);
+
+		abstract public void resize();
+
+		abstract public int active();
+
+		abstract public int waiting();
+
+		abstract public void destroy() throws Exception;
+	}
+
+	/**
+	 * 独立线程池
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private class ThreadBulkhead extends Bulkhead {
+
+		private final ThreadPoolExecutor executor;
+
+		private ThreadBulkhead(Service service, Queue queue, String method) {
+			super(service, queue, method);
+			int core = this.core();
+			this.executor = new ThreadPoolExecutor(core, Math.max(core, this.max()), QueueExecutorImpl.THREAD_KEEPALIVE_DEF, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(this.size()), new DefaultThreadFactory("kepler-bulkhead-" + service.service()), new RejectedCounter(queue.policy()));
+		}
+
+		@Override
+		public boolean execute(QueueRunnable runnable) {
+			this.executor.execute(new ProxyRunnable(runnable));
+			return true;
+		}
+
+		/**
+		 * 调整Core/Max(队列长度不可调整)
+		 */
+		@Override
+		public void resize() {
+			int core = this.core();
+			int max = Math.max(core, this.max());
+			if (core == this.executor.getCorePoolSize() && max == this.executor.getMaximumPoolSize()) {
+				return;
+			}
+			// 保证任意时刻Core <= Max
+			if (max >= this.executor.getCorePoolSize()) {
+				this.executor.setMaximumPoolSize(max);
+				this.executor.setCorePoolSize(core);
+			} else {
+				this.executor.setCorePoolSize(core);
+				this.executor.setMaximumPoolSize(max);
+			}
+			QueueExecutorImpl.LOGGER.warn("[resize][service=" + this.service + "][method=" + this.method + "][core=" + core + "][max=" + max + "]");
+		}
+
+		@Override
+		public int active() {
+			return this.executor.getActiveCount();
+		}
+
+		@Override
+		public int waiting() {
+			return this.executor.getQueue().size();
+		}
+
+		@Override
+		public void destroy() throws Exception {
+			QueueExecutorImpl.this.destroy(this.executor);
+		}
+
+		public String toString() {
+			return "[thread][core=" + this.executor.getCorePoolSize() + "][max=" + this.executor.getMaximumPoolSize() + "][queue=" + this.executor.getQueue().remainingCapacity() + "][policy=" + this.queue.policy() + "]";
+		}
+
+		/**
+		 * 统计拒绝数量
+		 *
+		 * @author KimShen
+		 *
+		 */
+		private class RejectedCounter implements RejectedExecutionHandler {
+
+			private final RejectedExecutionHandler handler;
+
+			private RejectedCounter(QueuePolicy policy) {
+				this.handler = policy.handler();
+			}
+
+			@Override
+			public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+				ThreadBulkhead.this.rejected.incrementAndGet();
+				this.handler.rejectedExecution(runnable, executor);
+			}
+		}
+	}
+
+	/**
+	 * 信号量隔离, 在当前线程执行, 并发数为Max
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private class SemaphoreBulkhead extends Bulkhead {
+
+		private final ResizableSemaphore semaphore;
+
+		private final AtomicInteger active = new AtomicInteger();
+
+		/**
+		 * 当前许可数量
+		 */
+		private int permits;
+
+		private SemaphoreBulkhead(Service service, Queue queue, String method) {
+			super(service, queue, method);
+			this.semaphore = new ResizableSemaphore(this.permits = this.max());
+		}
+
+		@Override
+		public boolean execute(QueueRunnable runnable) {
+			if (!this.semaphore.tryAcquire()) {
+				this.rejected.incrementAndGet();
+				throw new RejectedExecutionException("Bulkhead " + this.service + "[method=" + this.method + "] exhausted. [permits=" + this.permits + "]");
+			}
+			this.active.incrementAndGet();
+			try {
+				runnable.running();
+				return true;
+			} finally {
+				this.active.decrementAndGet();
+				this.semaphore.release();
+			}
+		}
+
+		@Override
+		public void resize() {
+			synchronized (this) {
+				int permits = this.max();
+				if (permits > this.permits) {
+					this.semaphore.release(permits - this.permits);
+				} else if (permits < this.permits) {
+					this.semaphore.reduce(this.permits - permits);
+				} else {
+					return;
+				}
+				this.permits = permits;
+				QueueExecutorImpl.LOGGER.warn("[resize][service=" + this.service + "][method=" + this.method + "][permits=" + permits + "]");
+			}
+		}
+
+		@Override
+		public int active() {
+			return this.active.get();
+		}
+
+		@Override
+		public int waiting() {
+			return 0;
+		}
+
+		@Override
+		public void destroy() throws Exception {
+		}
+
+		public String toString() {
+			return "[semaphore][permits=" + this.permits + "]";
+		}
+	}
+
+	private static class ResizableSemaphore extends Semaphore {
+
+		private static final long serialVersionUID = 1L;
+
+		private ResizableSemaphore(int permits) {
+			super(permits);
+		}
+
+		public void reduce(int reduction) {
+			super.reducePermits(reduction);
+		}
+	}
+
 	private class ProxyRunnable implements Runnable {
 
 		private final QueueRunnable runnable;
@@ -0,0 +1,46 @@
+package com.kepler.router.filter.circuit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.kepler.breaker.Breakers;
+import com.kepler.host.Host;
+import com.kepler.protocol.Request;
+import com.kepler.router.filter.HostFilter;
+
+/**
+ * 过滤熔断主机, 全部熔断时保留原列表(由熔断器Failed Fast)
+ * 
+ * @author KimShen
+ *
+ */
+public class CircuitFilter implements HostFilter {
+
+	private final Breakers breakers;
+
+	public CircuitFilter(Breakers breakers) {
+		super();
+		this.breakers = breakers;
+	}
+
+	@Override
+	public List<Host> filter(Request request, List<Host> hosts) {
+		// 无熔断则直接返回
+		if (!this.breakers.breaking()) {
+			return hosts;
+		}
+		List<Host> available = null;
+		for (int index = 0; index < hosts.size(); index++) {
+			Host host = hosts.get(index);
+			if (this.breakers.available(request, host)) {
+				if (available != null) {
+					available.add(host);
+				}
+			} else if (available == null) {
+				// 首个熔断主机, 复制此前可用主机
+				available = new ArrayList<Host>(hosts.subList(0, index));
+			}
+		}
+		return available == null || available.isEmpty() ? hosts : available;
+	}
+}
@@ -0,0 +1,48 @@
+package com.kepler.router.filter.exclude;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.kepler.host.Host;
+import com.kepler.protocol.Request;
+import com.kepler.router.filter.HostFilter;
+
+/**
+ * 排除本次调用已尝试的主机(线程绑定), 全部排除时保留原列表
+ * 
+ * @author KimShen
+ *
+ */
+public class ExcludeFilter implements HostFilter {
+
+	private final ThreadLocal<Collection<Host>> excluded = new ThreadLocal<Collection<Host>>();
+
+	/**
+	 * 绑定当前线程需排除的主机
+	 * 
+	 * @param hosts
+	 */
+	public void exclude(Collection<Host> hosts) {
+		this.excluded.set(hosts);
+	}
+
+	public void release() {
+		this.excluded.remove();
+	}
+
+	@Override
+	public List<Host> filter(Request request, List<Host> hosts) {
+		Collection<Host> excluded = this.excluded.get();
+		if (excluded == null || excluded.isEmpty()) {
+			return hosts;
+		}
+		List<Host> remain = new ArrayList<Host>(hosts.size());
+		for (Host each : hosts) {
+			if (!excluded.contains(each)) {
+				remain.add(each);
+			}
+		}
+		return remain.isEmpty() ? hosts : remain;
+	}
+}
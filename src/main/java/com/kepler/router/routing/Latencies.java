@@ -0,0 +1,98 @@
+package com.kepler.router.routing;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kepler.config.PropertiesUtils;
+import com.kepler.host.Host;
+
+/**
+ * 主机实时延迟(RTT EWMA)及未完成请求数
+ * 
+ * @author KimShen
+ *
+ */
+public class Latencies {
+
+	/**
+	 * EWMA衰减因子, 越大越偏向最新样本
+	 */
+	private static final double DECAY = PropertiesUtils.get(Latencies.class.getName().toLowerCase() + ".decay", 0.3);
+
+	private final ConcurrentMap<Host, Latency> latencies = new ConcurrentHashMap<Host, Latency>();
+
+	private Latency latency(Host host) {
+		Latency latency = this.latencies.get(host);
+		if (latency == null) {
+			Latency created = new Latency();
+			latency = this.latencies.putIfAbsent(host, created);
+			latency = latency != null ? latency : created;
+		}
+		return latency;
+	}
+
+	/**
+	 * 请求发出
+	 * 
+	 * @param host
+	 */
+	public void begin(Host host) {
+		this.latency(host).pending.incrementAndGet();
+	}
+
+	/**
+	 * 请求完成(响应, 异常, 超时)
+	 * 
+	 * @param host
+	 * @param elapse 耗时(纳秒)
+	 */
+	public void end(Host host, long elapse) {
+		this.latency(host).sample(elapse);
+	}
+
+	/**
+	 * 请求取消(Compete/Broadcast落选), 耗时不代表主机延迟, 仅减少未完成数
+	 * 
+	 * @param host
+	 */
+	public void cancel(Host host) {
+		this.latency(host).pending.decrementAndGet();
+	}
+
+	/**
+	 * 评分, 越小越优先. 无样本主机使用对比主机的延迟, 仅以未完成请求数区分
+	 * 
+	 * @param host
+	 * @param peer 对比主机
+	 * @return
+	 */
+	public double score(Host host, Host peer) {
+		Latency latency = this.latencies.get(host);
+		Latency other = this.latencies.get(peer);
+		double seed = other != null ? other.rtt : 0;
+		return latency != null ? latency.score(seed) : seed + 1;
+	}
+
+	private static class Latency {
+
+		private final AtomicInteger pending = new AtomicInteger();
+
+		/**
+		 * 并发更新允许丢失样本
+		 */
+		volatile private double rtt;
+
+		public void sample(long elapse) {
+			this.pending.decrementAndGet();
+			double rtt = this.rtt;
+			this.rtt = rtt == 0 ? elapse : rtt + Latencies.DECAY * (elapse - rtt);
+		}
+
+		public double score(double seed) {
+			double rtt = this.rtt != 0 ? this.rtt : seed;
+			// 延迟 * (未完成 + 1), +1避免0值无法区分
+			return (rtt + 1) * (Math.max(this.pending.get(), 0) + 1);
+		}
+	}
+}
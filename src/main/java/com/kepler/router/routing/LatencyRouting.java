@@ -0,0 +1,47 @@
+package com.kepler.router.routing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.kepler.host.Host;
+import com.kepler.protocol.Request;
+import com.kepler.router.Routing;
+
+/**
+ * 随机选取2台主机, 选择延迟 * 未完成请求更小者(Power of Two Choices)
+ * 
+ * @author KimShen
+ *
+ */
+public class LatencyRouting implements Routing {
+
+	public static final String NAME = "latency";
+
+	private final Latencies latencies;
+
+	public LatencyRouting(Latencies latencies) {
+		super();
+		this.latencies = latencies;
+	}
+
+	@Override
+	public String name() {
+		return LatencyRouting.NAME;
+	}
+
+	@Override
+	public Host route(Request request, List<Host> hosts) {
+		// 如果仅一台主机则立即返回
+		if (hosts.size() == 1) {
+			return hosts.get(0);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(hosts.size());
+		// 与First不同的下标
+		int second = random.nextInt(hosts.size() - 1);
+		second = second >= first ? second + 1 : second;
+		Host host4first = hosts.get(first);
+		Host host4second = hosts.get(second);
+		return this.latencies.score(host4first, host4second) <= this.latencies.score(host4second, host4first) ? host4first : host4second;
+	}
+}
@@ -1,7 +1,9 @@
 package com.kepler.router.routing;
 
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.kepler.KeplerRoutingException;
 import com.kepler.config.Profile;
@@ -9,8 +11,11 @@ import com.kepler.config.PropertiesUtils;
 import com.kepler.host.Host;
 import com.kepler.protocol.Request;
 import com.kepler.router.Routing;
+import com.kepler.service.Service;
 
 /**
+ * 按服务-Tag-主机集合预计算路由表, 配置版本变化时重建. 主机集合在多个子集间切换(如熔断过滤)时复用已有路由表
+ * 
  * @author zhangjiehao 2015年9月9日
  */
 abstract public class LoadBalance implements Routing {
@@ -27,6 +32,16 @@ abstract public class LoadBalance implements Routing {
 	 */
 	private static final int LOCATION_PRIORITY_DEF = PropertiesUtils.get(LoadBalance.LOCATION_PRIORITY_KEY, 0);
 
+	/**
+	 * 单服务最大路由表数量(Tag及主机子集组合), 超过则清空
+	 */
+	private static final int TABLES_MAX = PropertiesUtils.get(LoadBalance.class.getName().toLowerCase() + ".tables_max", 64);
+
+	/**
+	 * 服务 - (Tag, 主机集合) - 路由表
+	 */
+	private final ConcurrentMap<Service, ConcurrentMap<Key, Table>> tables = new ConcurrentHashMap<Service, ConcurrentMap<Key, Table>>();
+
 	private final Profile profile;
 
 	public LoadBalance(Profile profile) {
@@ -34,7 +49,15 @@ abstract public class LoadBalance implements Routing {
 		this.profile = profile;
 	}
 
-	abstract protected int next(int weights);
+	/**
+	 * 创建路由表
+	 * 
+	 * @param hosts 主机
+	 * @param weights 主机对应权重(与hosts下标一致)
+	 * @param total 权重和, 大于0
+	 * @return
+	 */
+	abstract protected Selector selector(Host[] hosts, int[] weights, int total);
 
 	/**
 	 * 获取指定目标主机对于本次请求的权重
@@ -45,8 +68,8 @@ abstract public class LoadBalance implements Routing {
 	 */
 	private int priority(Request request, Host host) {
 		// 计算基数, 如果未开启则使用默认基数
-		int multi = LoadBalance.LOCATION_ENABLED ? PropertiesUtils.profile(this.profile.profile(request.service()), LoadBalance.LOCATION_PRIORITY_KEY + "." + host.location(), LoadBalance.LOCATION_PRIORITY_DEF) : LoadBalance.LOCATION_PRIORITY_DEF;
-		return multi + host.priority();
+		int multi = LoadBalance.LOCATION_ENABLED ? this.profile.get(request.service(), LoadBalance.LOCATION_PRIORITY_KEY + "." + host.location(), LoadBalance.LOCATION_PRIORITY_DEF) : LoadBalance.LOCATION_PRIORITY_DEF;
+		return Math.max(0, multi + host.priority());
 	}
 
 	@Override
@@ -55,67 +78,138 @@ abstract public class LoadBalance implements Routing {
 		if (hosts.size() == 1) {
 			return hosts.get(0);
 		}
-		Slots slots = new Slots(request, hosts);
-		int cursor = this.next(this.sumUpWeight(request, hosts));
-		while (slots.hasNext()) {
-			if (cursor < slots.next()) {
-				return slots.host();
-			}
+		Host host = this.table(request, hosts).next();
+		if (host == null) {
+			throw new KeplerRoutingException("None right service for " + request.service());
 		}
-		throw new KeplerRoutingException("None right service for " + request.service());
+		return host;
+	}
+
+	private ConcurrentMap<Key, Table> tables(Service service) {
+		ConcurrentMap<Key, Table> tables = this.tables.get(service);
+		if (tables == null) {
+			ConcurrentMap<Key, Table> created = new ConcurrentHashMap<Key, Table>();
+			tables = this.tables.putIfAbsent(service, created);
+			tables = tables != null ? tables : created;
+		}
+		return tables;
 	}
 
 	/**
-	 * 计算全部权重
+	 * 获取路由表, 不存在或版本失效则重建(并发重建时后者覆盖前者, 结果等价)
 	 * 
 	 * @param request
 	 * @param hosts
 	 * @return
 	 */
-	private int sumUpWeight(Request request, List<Host> hosts) {
-		int totalWeight = 0;
-		if (!hosts.isEmpty()) {
-			for (Host host : hosts) {
-				totalWeight += this.priority(request, host);
+	private Table table(Request request, List<Host> hosts) {
+		ConcurrentMap<Key, Table> tables = this.tables(request.service());
+		String tag = request.get(Host.TAG_KEY, Host.TAG_DEF);
+		// 先获取版本再计算权重, 保证路由表不会比版本旧
+		long version = PropertiesUtils.version();
+		Table table = tables.get(new Key(tag, hosts));
+		if (table == null || table.version != version) {
+			// 主机集合频繁变化(如上下线)时避免无限增长
+			if (table == null && tables.size() >= LoadBalance.TABLES_MAX) {
+				tables.clear();
 			}
+			table = this.build(request, tag, hosts, version);
+			tables.put(table.key, table);
 		}
-		return totalWeight;
+		return table;
 	}
 
-	private class Slots implements Iterator<Integer> {
+	private Table build(Request request, String tag, List<Host> source, long version) {
+		Host[] hosts = source.toArray(new Host[source.size()]);
+		int[] weights = new int[hosts.length];
+		int total = 0;
+		for (int index = 0; index < hosts.length; index++) {
+			total += (weights[index] = this.priority(request, hosts[index]));
+		}
+		// 使用副本作为Key, 避免引用外部集合
+		return new Table(new Key(tag, Arrays.asList(hosts)), version, total > 0 ? this.selector(hosts, weights, total) : null);
+	}
 
-		private final List<Host> hosts;
+	/**
+	 * 主机选择
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	protected interface Selector {
+
+		public Host next();
+	}
+
+	/**
+	 * Tag + 主机集合(按实例比较, 主机更新后为新实例)
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private static class Key {
 
-		private final Request request;
+		private final String tag;
 
-		private int currentHost = -1;
+		private final List<Host> hosts;
 
-		private int currentSlot = 0;
+		private final int hash;
 
-		private Slots(Request request, List<Host> hosts) {
-			this.request = request;
+		private Key(String tag, List<Host> hosts) {
+			int hash = tag != null ? tag.hashCode() : 0;
+			for (Host host : hosts) {
+				hash = hash * 31 + System.identityHashCode(host);
+			}
 			this.hosts = hosts;
+			this.hash = hash;
+			this.tag = tag;
 		}
 
 		@Override
-		public boolean hasNext() {
-			return this.currentHost < this.hosts.size() - 1;
+		public int hashCode() {
+			return this.hash;
 		}
 
 		@Override
-		public Integer next() {
-			this.currentHost += 1;
-			this.currentSlot += LoadBalance.this.priority(this.request, this.hosts.get(this.currentHost));
-			return this.currentSlot;
+		public boolean equals(Object ob) {
+			if (this == ob) {
+				return true;
+			}
+			if (!(ob instanceof Key)) {
+				return false;
+			}
+			Key key = Key.class.cast(ob);
+			if (this.hash != key.hash || this.hosts.size() != key.hosts.size() || !(this.tag != null ? this.tag.equals(key.tag) : key.tag == null)) {
+				return false;
+			}
+			for (int index = 0; index < this.hosts.size(); index++) {
+				if (this.hosts.get(index) != key.hosts.get(index)) {
+					return false;
+				}
+			}
+			return true;
 		}
+	}
 
-		public Host host() {
-			return this.hosts.get(this.currentHost);
+	private static class Table {
+
+		private final Key key;
+
+		private final long version;
+
+		/**
+		 * Null表示权重和为0, 无可用主机
+		 */
+		private final Selector selector;
+
+		private Table(Key key, long version, Selector selector) {
+			this.selector = selector;
+			this.version = version;
+			this.key = key;
 		}
 
-		@Override
-		public void remove() {
-			throw new UnsupportedOperationException();
+		public Host next() {
+			return this.selector != null ? this.selector.next() : null;
 		}
 	}
 }
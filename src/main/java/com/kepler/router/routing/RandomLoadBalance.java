@@ -3,9 +3,12 @@ package com.kepler.router.routing;
 import java.util.concurrent.ThreadLocalRandom;
 
 import com.kepler.config.Profile;
+import com.kepler.host.Host;
 import com.kepler.router.Routing;
 
 /**
+ * 加权随机, Vose Alias Method, O(1)选择
+ * 
  * @author zhangjiehao 2015年9月7日
  */
 public class RandomLoadBalance extends LoadBalance {
@@ -20,7 +23,69 @@ public class RandomLoadBalance extends LoadBalance {
 	}
 
 	@Override
-	protected int next(int weights) {
-		return weights == 0 ? weights : ThreadLocalRandom.current().nextInt(weights);
+	protected Selector selector(Host[] hosts, int[] weights, int total) {
+		return new AliasSelector(hosts, weights, total);
+	}
+
+	private static class AliasSelector implements Selector {
+
+		private final Host[] hosts;
+
+		/**
+		 * 命中自身的概率
+		 */
+		private final double[] probability;
+
+		/**
+		 * 未命中自身时的替代下标
+		 */
+		private final int[] alias;
+
+		private AliasSelector(Host[] hosts, int[] weights, int total) {
+			int length = hosts.length;
+			this.hosts = hosts;
+			this.alias = new int[length];
+			this.probability = new double[length];
+			// 缩放后的概率(平均为1)
+			double[] scaled = new double[length];
+			int[] small = new int[length];
+			int[] large = new int[length];
+			int small_size = 0;
+			int large_size = 0;
+			for (int index = 0; index < length; index++) {
+				scaled[index] = (double) weights[index] * length / total;
+				if (scaled[index] < 1.0) {
+					small[small_size++] = index;
+				} else {
+					large[large_size++] = index;
+				}
+			}
+			while (small_size > 0 && large_size > 0) {
+				int less = small[--small_size];
+				int more = large[--large_size];
+				this.probability[less] = scaled[less];
+				this.alias[less] = more;
+				scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+				if (scaled[more] < 1.0) {
+					small[small_size++] = more;
+				} else {
+					large[large_size++] = more;
+				}
+			}
+			// 剩余项(含浮点误差)概率为1
+			while (large_size > 0) {
+				this.probability[large[--large_size]] = 1.0;
+			}
+			while (small_size > 0) {
+				this.probability[small[--small_size]] = 1.0;
+			}
+		}
+
+		@Override
+		public Host next() {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int index = random.nextInt(this.hosts.length);
+			return random.nextDouble() < this.probability[index] ? this.hosts[index] : this.hosts[this.alias[index]];
+		}
 	}
 }
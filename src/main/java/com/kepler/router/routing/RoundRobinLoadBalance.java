@@ -2,16 +2,23 @@ package com.kepler.router.routing;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.kepler.config.PropertiesUtils;
 import com.kepler.config.Profile;
+import com.kepler.host.Host;
 
 /**
+ * 平滑加权轮询, 构建时预计算序列, O(1)选择
+ * 
  * @author zhangjiehao 2015年9月7日
  */
 public class RoundRobinLoadBalance extends LoadBalance {
 
-	public static final String NAME = "roundrobin";
+	/**
+	 * 轮询序列最大长度, 超过则按比例缩放权重
+	 */
+	private static final int SEQUENCE_MAX = PropertiesUtils.get(RoundRobinLoadBalance.class.getName().toLowerCase() + ".sequence_max", 0x1 << 14);
 
-	private final AtomicInteger indexes = new AtomicInteger(-1);
+	public static final String NAME = "roundrobin";
 
 	public RoundRobinLoadBalance(Profile profile) {
 		super(profile);
@@ -23,7 +30,69 @@ public class RoundRobinLoadBalance extends LoadBalance {
 	}
 
 	@Override
-	protected int next(int weights) {
-		return (this.indexes.incrementAndGet() & Byte.MAX_VALUE) % weights;
+	protected Selector selector(Host[] hosts, int[] weights, int total) {
+		return new SequenceSelector(hosts, this.reduce(weights, total));
+	}
+
+	private int gcd(int a, int b) {
+		return b == 0 ? a : this.gcd(b, a % b);
+	}
+
+	/**
+	 * 约分权重, 并保证序列长度不超过SEQUENCE_MAX
+	 * 
+	 * @param weights
+	 * @param total
+	 * @return
+	 */
+	private int[] reduce(int[] weights, int total) {
+		int gcd = 0;
+		for (int weight : weights) {
+			gcd = this.gcd(weight, gcd);
+		}
+		int[] reduced = new int[weights.length];
+		// 缩放比例(约分后依然过长)
+		double scale = (double) (total / gcd) > RoundRobinLoadBalance.SEQUENCE_MAX ? (double) RoundRobinLoadBalance.SEQUENCE_MAX / (total / gcd) : 1.0;
+		for (int index = 0; index < weights.length; index++) {
+			// 非0权重至少保留1
+			reduced[index] = weights[index] == 0 ? 0 : Math.max(1, (int) ((weights[index] / gcd) * scale));
+		}
+		return reduced;
+	}
+
+	private static class SequenceSelector implements Selector {
+
+		/**
+		 * 每个路由表独立计数, 避免其他服务/子集的请求打乱轮询顺序
+		 */
+		private final AtomicInteger indexes = new AtomicInteger(-1);
+
+		private final Host[] sequence;
+
+		private SequenceSelector(Host[] hosts, int[] weights) {
+			int total = 0;
+			for (int weight : weights) {
+				total += weight;
+			}
+			this.sequence = new Host[total];
+			// Smooth Weighted Round-Robin
+			int[] current = new int[hosts.length];
+			for (int position = 0; position < total; position++) {
+				int selected = -1;
+				for (int index = 0; index < hosts.length; index++) {
+					current[index] += weights[index];
+					if (selected == -1 || current[index] > current[selected]) {
+						selected = index;
+					}
+				}
+				current[selected] -= total;
+				this.sequence[position] = hosts[selected];
+			}
+		}
+
+		@Override
+		public Host next() {
+			return this.sequence[(this.indexes.incrementAndGet() & Integer.MAX_VALUE) % this.sequence.length];
+		}
 	}
 }
@@ -19,10 +19,27 @@ public class Hessian2Serial extends HessianSerial {
 	 */
 	private static final int BUFFER = PropertiesUtils.get(Hessian2Serial.class.getName().toLowerCase() + ".buffer", 0x4 << 6);
 
+	/**
+	 * 是否复用线程绑定的Hessian2Input/Hessian2Output
+	 */
+	private static final boolean REUSE = PropertiesUtils.get(Hessian2Serial.class.getName().toLowerCase() + ".reuse", true);
+
 	private static final String NAME = "hessian2";
 
 	public static final byte SERIAL = 1;
 
+	private final ThreadLocal<HessianOutputProxy2> outputs = new ThreadLocal<HessianOutputProxy2>() {
+		protected HessianOutputProxy2 initialValue() {
+			return new HessianOutputProxy2();
+		}
+	};
+
+	private final ThreadLocal<HessianInputProxy2> inputs = new ThreadLocal<HessianInputProxy2>() {
+		protected HessianInputProxy2 initialValue() {
+			return new HessianInputProxy2();
+		}
+	};
+
 	public Hessian2Serial(ResponseFactories response, RequestFactories request) {
 		super(response, request);
 	}
@@ -46,11 +63,13 @@ public class Hessian2Serial extends HessianSerial {
 
 	@Override
 	protected HessianInputProxy input(InputStream stream, Integer buffer) {
-		return new HessianInputProxy2(stream, buffer);
+		// 复用实例直接读取Stream(Hessian2Input自带缓冲)
+		return Hessian2Serial.REUSE ? this.inputs.get().acquire(stream) : new HessianInputProxy2(stream, buffer);
 	}
 
 	@Override
 	protected HessianOutputProxy output(OutputStream stream, Integer buffer) {
-		return new HessianOutputProxy2(stream, buffer);
+		// 复用实例直接写入Stream(Hessian2Output自带缓冲)
+		return Hessian2Serial.REUSE ? this.outputs.get().acquire(stream) : new HessianOutputProxy2(stream, buffer);
 	}
 }
@@ -15,8 +15,45 @@ public class HessianInputProxy2 implements HessianInputProxy {
 
 	private final Hessian2Input input;
 
+	/**
+	 * 是否可复用(复用实例不使用BufferedInputStream, Hessian2Input自带缓冲)
+	 */
+	private final boolean reusable;
+
+	/**
+	 * 是否已被占用
+	 */
+	private boolean acquired;
+
 	public HessianInputProxy2(InputStream stream, int buffer) {
 		this.input = new Hessian2Input(new BufferedInputStream(stream, buffer));
+		this.reusable = false;
+	}
+
+	/**
+	 * 可复用实例, 通过{@link #acquire(InputStream)}绑定流
+	 */
+	public HessianInputProxy2() {
+		this.input = new Hessian2Input();
+		this.reusable = true;
+	}
+
+	/**
+	 * 绑定流并占用当前实例, 如果已被占用(重入)则创建临时实例
+	 * 
+	 * @param stream
+	 * @return
+	 */
+	public HessianInputProxy2 acquire(InputStream stream) {
+		if (this.acquired) {
+			HessianInputProxy2 temporary = new HessianInputProxy2();
+			temporary.input.init(stream);
+			temporary.acquired = true;
+			return temporary;
+		}
+		this.input.init(stream);
+		this.acquired = true;
+		return this;
 	}
 
 	@Override
@@ -27,7 +64,15 @@ public class HessianInputProxy2 implements HessianInputProxy {
 
 	@Override
 	public HessianInputProxy2 close() throws IOException {
-		this.input.close();
+		try {
+			this.input.close();
+		} finally {
+			// 复用实例重置引用表及缓冲并释放占用
+			if (this.reusable) {
+				this.input.free();
+				this.acquired = false;
+			}
+		}
 		return this;
 	}
 
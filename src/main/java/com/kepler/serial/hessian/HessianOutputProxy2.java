@@ -15,8 +15,45 @@ public class HessianOutputProxy2 implements HessianOutputProxy {
 
 	private final Hessian2Output output;
 
+	/**
+	 * 是否可复用(复用实例不使用BufferedOutputStream, Hessian2Output自带缓冲)
+	 */
+	private final boolean reusable;
+
+	/**
+	 * 是否已被占用
+	 */
+	private boolean acquired;
+
 	public HessianOutputProxy2(OutputStream stream, int buffer) {
 		this.output = new Hessian2Output(new BufferedOutputStream(stream, buffer));
+		this.reusable = false;
+	}
+
+	/**
+	 * 可复用实例, 通过{@link #acquire(OutputStream)}绑定流
+	 */
+	public HessianOutputProxy2() {
+		this.output = new Hessian2Output();
+		this.reusable = true;
+	}
+
+	/**
+	 * 绑定流并占用当前实例, 如果已被占用(重入)则创建临时实例
+	 * 
+	 * @param stream
+	 * @return
+	 */
+	public HessianOutputProxy2 acquire(OutputStream stream) {
+		if (this.acquired) {
+			HessianOutputProxy2 temporary = new HessianOutputProxy2();
+			temporary.output.init(stream);
+			temporary.acquired = true;
+			return temporary;
+		}
+		this.output.init(stream);
+		this.acquired = true;
+		return this;
 	}
 
 	public HessianOutputProxy setSerializerFactory(SerializerFactory factory) {
@@ -50,7 +87,15 @@ public class HessianOutputProxy2 implements HessianOutputProxy {
 	}
 
 	public void close() throws IOException {
-		this.output.close();
+		try {
+			this.output.close();
+		} finally {
+			// 复用实例重置引用表及缓冲并释放占用
+			if (this.reusable) {
+				this.output.free();
+				this.acquired = false;
+			}
+		}
 	}
 
 	public void flush() throws IOException {
@@ -1,5 +1,7 @@
 package com.kepler.service;
 
+import java.util.List;
+
 /**
  * 节点变化通知
  * 
@@ -17,4 +19,14 @@ public interface ImportedListener {
 	 * @throws Exception
 	 */
 	public void change(ServiceInstance current, ServiceInstance newInstance) throws Exception;
+
+	/**
+	 * 批量变更(路由表原子更新)
+	 * 
+	 * @param added 新增节点
+	 * @param changed 变更节点, [0]为当前, [1]为新节点
+	 * @param deleted 删除节点
+	 * @throws Exception
+	 */
+	public void refresh(List<ServiceInstance> added, List<ServiceInstance[]> changed, List<ServiceInstance> deleted) throws Exception;
 }
\ No newline at end of file
@@ -24,6 +24,11 @@ public final class Service implements Serializable {
 
 	private final String catalog;
 
+	/**
+	 * Hash缓存(不可变对象)
+	 */
+	transient private int hash;
+
 	private Service(String service, com.kepler.annotation.Service annotation) {
 		this(service, annotation.version(), annotation.catalog());
 	}
@@ -67,7 +72,11 @@ public final class Service implements Serializable {
 	}
 
 	public int hashCode() {
-		return this.service().hashCode() ^ this.versionAndCatalog().hashCode();
+		int hash = this.hash;
+		if (hash == 0) {
+			this.hash = hash = this.service().hashCode() ^ this.versionAndCatalog().hashCode();
+		}
+		return hash;
 	}
 
 	public boolean equals(Object ob) {
@@ -1,12 +1,17 @@
 package com.kepler.service.exported;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.cglib.reflect.FastMethod;
 
 import com.kepler.KeplerRemoteException;
 import com.kepler.KeplerValidateException;
@@ -69,10 +74,10 @@ public class DefaultContext implements ExportedContext, ExportedServices, Export
 	}
 
 	@Override
-	public void export(Service service, Object instance) {
+	public void export(Service service, Object instance) throws Exception {
 		this.valid(service);
 		this.services.put(service, instance);
-		this.invokers.put(service, Mocker.class.isAssignableFrom(instance.getClass()) ? new MockerInvoker(instance) : new ProxyInvoker(instance));
+		this.invokers.put(service, Mocker.class.isAssignableFrom(instance.getClass()) ? new MockerInvoker(instance) : new ProxyInvoker(service, instance));
 	}
 
 	public void logout(Service service) throws Exception {
@@ -107,13 +112,112 @@ public class DefaultContext implements ExportedContext, ExportedServices, Export
 		}
 	}
 
+	/**
+	 * 发布时预编译的方法入口(FastClass直接调用, 生成失败则使用反射)
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class Dispatcher {
+
+		private final Class<?>[] types;
+
+		private final FastMethod fast;
+
+		private final Method method;
+
+		private Dispatcher(Method method, FastMethod fast) {
+			super();
+			this.types = method.getParameterTypes();
+			this.method = method;
+			this.fast = fast;
+		}
+
+		public Object invoke(Object instance, Object[] args) throws Throwable {
+			return this.fast != null ? this.fast.invoke(instance, args) : this.method.invoke(instance, args);
+		}
+	}
+
 	private class ProxyInvoker implements Invoker {
 
+		/**
+		 * 方法名 -> 入口(重载)
+		 */
+		private final Map<String, Dispatcher[]> dispatchers = new HashMap<String, Dispatcher[]>();
+
+		/**
+		 * 方法 -> 入口, 用于非精确匹配
+		 */
+		private final Map<Method, Dispatcher> methods = new HashMap<Method, Dispatcher>();
+
 		private final Object service;
 
-		private ProxyInvoker(Object service) {
+		private ProxyInvoker(Service service, Object instance) throws Exception {
 			super();
-			this.service = service;
+			this.service = instance;
+			this.prepare(service);
+		}
+
+		/**
+		 * 生成方法入口
+		 * 
+		 * @param service
+		 */
+		private void prepare(Service service) {
+			try {
+				Class<?> clazz = Service.clazz(service);
+				FastClass fast = this.fast(clazz);
+				Map<String, List<Dispatcher>> dispatchers = new HashMap<String, List<Dispatcher>>();
+				for (Method method : clazz.getMethods()) {
+					Dispatcher dispatcher = new Dispatcher(method, fast != null ? fast.getMethod(method) : null);
+					List<Dispatcher> overloads = dispatchers.get(method.getName());
+					if (overloads == null) {
+						dispatchers.put(method.getName(), overloads = new ArrayList<Dispatcher>());
+					}
+					overloads.add(dispatcher);
+					this.methods.put(method, dispatcher);
+				}
+				for (String name : dispatchers.keySet()) {
+					this.dispatchers.put(name, dispatchers.get(name).toArray(new Dispatcher[] {}));
+				}
+			} catch (ClassNotFoundException | NoClassDefFoundError e) {
+				DefaultContext.LOGGER.info("Class not found: " + service);
+			} catch (Exception e) {
+				DefaultContext.LOGGER.warn(e.getMessage(), e);
+			}
+		}
+
+		private FastClass fast(Class<?> clazz) {
+			try {
+				return FastClass.create(clazz);
+			} catch (Throwable e) {
+				DefaultContext.LOGGER.warn("FastClass failed for " + clazz + ", using reflection ... ", e);
+				return null;
+			}
+		}
+
+		/**
+		 * 获取方法入口, 参数类型精确匹配则直接返回否则使用Methods定位
+		 * 
+		 * @param request
+		 * @return
+		 * @throws Exception
+		 */
+		private Dispatcher dispatcher(Request request) throws Exception {
+			Dispatcher[] overloads = this.dispatchers.get(request.method());
+			if (overloads != null) {
+				for (Dispatcher each : overloads) {
+					if (Arrays.equals(each.types, request.types())) {
+						return each;
+					}
+				}
+			}
+			Method method = DefaultContext.this.methods.method(Service.clazz(request.service()), request.method(), request.types()).method();
+			if (method == null) {
+				return null;
+			}
+			Dispatcher dispatcher = this.methods.get(method);
+			return dispatcher != null ? dispatcher : new Dispatcher(method, null);
 		}
 
 		@Override
@@ -133,9 +237,9 @@ public class DefaultContext implements ExportedContext, ExportedServices, Export
 		 */
 		private Object invoke4method(Request request) throws Throwable {
 			// 获取执行方法
-			Method method = DefaultContext.this.methods.method(Service.clazz(request.service()), request.method(), request.types()).method();
+			Dispatcher dispatcher = this.exists(request, this.dispatcher(request));
 			try {
-				return this.response(request, this.exists(request, method).invoke(this.service, request.args()));
+				return this.response(request, dispatcher.invoke(this.service, request.args()));
 			} catch (NoSuchMethodException exception) {
 				// 直接抛出, 提供客户端定位
 				DefaultContext.LOGGER.error(exception.getMessage(), exception);
@@ -143,7 +247,7 @@ public class DefaultContext implements ExportedContext, ExportedServices, Export
 			} catch (Throwable throwable) {
 				// 是否静默异常或本地输出
 				DefaultContext.this.quiet.print(request, throwable);
-				throw this.throwable(method, this.cause(throwable));
+				throw this.throwable(dispatcher.method, this.cause(throwable));
 			}
 		}
 
@@ -164,15 +268,15 @@ public class DefaultContext implements ExportedContext, ExportedServices, Export
 		 * Method是否已定位
 		 * 
 		 * @param request
-		 * @param method
+		 * @param dispatcher
 		 * @return
 		 * @throws NoSuchMethodException
 		 */
-		private Method exists(Request request, Method method) throws NoSuchMethodException {
-			if (method == null) {
+		private Dispatcher exists(Request request, Dispatcher dispatcher) throws NoSuchMethodException {
+			if (dispatcher == null) {
 				throw new NoSuchMethodException("No such method: " + request.method() + " for service: " + request.service());
 			}
-			return method;
+			return dispatcher;
 		}
 
 		/**
@@ -107,10 +107,15 @@ public class QuietExceptions implements Quiet, Imported, Exported {
 			if (AnnotationUtils.findAnnotation(throwable, QuietThrowable.class) != null) {
 				return true;
 			}
-			Method actual = this.methods.method(Service.clazz(request.service()), request.method(), request.types()).method();
 			QuietMethods methods = this.quiets.get(request.service());
-			// 如果可以获取QuietMethods(非泛化)并且可以获取实际方法则尝试从QuietMethods解析, 如果QuietMethods或实际方法任一无法获得则尝试解析异常
-			return (methods != null && actual != null) ? methods.exceptions(actual).contains(throwable) : false;
+			// Guard case, 无法获取QuietMethods(泛化)
+			if (methods == null) {
+				return false;
+			}
+			// 参数类型精确匹配则无需定位实际方法
+			Method actual = methods.method(request);
+			actual = actual != null ? actual : this.methods.method(Service.clazz(request.service()), request.method(), request.types()).method();
+			return actual != null ? methods.exceptions(actual).contains(throwable) : false;
 		} catch (Exception e) {
 			QuietExceptions.LOGGER.debug(e.getMessage(), e);
 			return false;
@@ -137,6 +142,11 @@ public class QuietExceptions implements Quiet, Imported, Exported {
 
 		private final Map<Method, List<Class<? extends Throwable>>> quiet = new HashMap<Method, List<Class<? extends Throwable>>>();
 
+		/**
+		 * 方法名 -> 方法(重载)
+		 */
+		private final Map<String, List<Overload>> names = new HashMap<String, List<Overload>>();
+
 		/**
 		 * Method -> 对应静默异常
 		 * 
@@ -146,12 +156,48 @@ public class QuietExceptions implements Quiet, Imported, Exported {
 		 */
 		private QuietMethods put(Method method, List<Class<? extends Throwable>> throwables) {
 			this.quiet.put(method, throwables);
+			List<Overload> overloads = this.names.get(method.getName());
+			if (overloads == null) {
+				this.names.put(method.getName(), overloads = new ArrayList<Overload>());
+			}
+			overloads.add(new Overload(method));
 			return this;
 		}
 
+		/**
+		 * 按方法名及参数类型精确匹配
+		 * 
+		 * @param request
+		 * @return 不存在则返回Null
+		 */
+		public Method method(Request request) {
+			List<Overload> overloads = this.names.get(request.method());
+			if (overloads != null) {
+				for (Overload each : overloads) {
+					if (Arrays.equals(each.types, request.types())) {
+						return each.method;
+					}
+				}
+			}
+			return null;
+		}
+
 		public List<Class<? extends Throwable>> exceptions(Method method) {
 			List<Class<? extends Throwable>> exceptions = this.quiet.get(method);
 			return exceptions != null ? exceptions : QuietExceptions.EMPTY;
 		}
 	}
+
+	private static class Overload {
+
+		private final Class<?>[] types;
+
+		private final Method method;
+
+		private Overload(Method method) {
+			super();
+			this.method = method;
+			this.types = method.getParameterTypes();
+		}
+	}
 }
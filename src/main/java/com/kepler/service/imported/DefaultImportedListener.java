@@ -1,7 +1,15 @@
 package com.kepler.service.imported;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.kepler.breaker.Breakers;
 import com.kepler.connection.Connect;
 import com.kepler.host.HostsContext;
+import com.kepler.limit.Limits;
 import com.kepler.service.ImportedListener;
 import com.kepler.service.InstanceBlocker;
 import com.kepler.service.Service;
@@ -12,17 +20,54 @@ import com.kepler.service.ServiceInstance;
  */
 public class DefaultImportedListener implements ImportedListener {
 
+	private static final Log LOGGER = LogFactory.getLog(DefaultImportedListener.class);
+
 	private final InstanceBlocker blocker;
 
 	private final HostsContext context;
 
 	private final Connect connect;
 
+	/**
+	 * 熔断器, 可为Null
+	 */
+	private final Breakers breakers;
+
+	/**
+	 * 主机级并发限制, 可为Null
+	 */
+	private final Limits limits;
+
 	public DefaultImportedListener(HostsContext context, Connect connect, InstanceBlocker blocker) {
+		this(context, connect, blocker, null, null);
+	}
+
+	public DefaultImportedListener(HostsContext context, Connect connect, InstanceBlocker blocker, Breakers breakers) {
+		this(context, connect, blocker, breakers, null);
+	}
+
+	public DefaultImportedListener(HostsContext context, Connect connect, InstanceBlocker blocker, Breakers breakers, Limits limits) {
 		super();
 		this.context = context;
 		this.connect = connect;
 		this.blocker = blocker;
+		this.breakers = breakers;
+		this.limits = limits;
+	}
+
+	/**
+	 * 主机下线后移除对应熔断器及主机级限制
+	 * 
+	 * @param instance
+	 */
+	private void retire(ServiceInstance instance) {
+		Service service = new Service(instance.service(), instance.version(), instance.catalog());
+		if (this.breakers != null) {
+			this.breakers.remove(service, instance.host());
+		}
+		if (this.limits != null) {
+			this.limits.remove(service, instance.host());
+		}
 	}
 
 	@Override
@@ -38,6 +83,7 @@ public class DefaultImportedListener implements ImportedListener {
 	@Override
 	public void delete(ServiceInstance instance) throws Exception {
 		this.context.remove(instance.host(), new Service(instance.service(), instance.version(), instance.catalog()));
+		this.retire(instance);
 	}
 
 	@Override
@@ -48,4 +94,60 @@ public class DefaultImportedListener implements ImportedListener {
 		}
 		this.context.getOrCreate(new Service(current.service(), current.version(), current.catalog())).replace(current.host(), newInstance.host());
 	}
+
+	@Override
+	public void refresh(List<ServiceInstance> added, List<ServiceInstance[]> changed, List<ServiceInstance> deleted) throws Exception {
+		Batch batch = new Batch(added, changed, deleted);
+		// 路由表原子更新后再建立连接(连接耗时, 不占用变更锁)
+		this.context.update(batch);
+		for (ServiceInstance instance : deleted) {
+			this.retire(instance);
+		}
+		for (ServiceInstance instance : batch.connects) {
+			try {
+				this.connect.connect(instance.host());
+			} catch (Exception e) {
+				DefaultImportedListener.LOGGER.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	private class Batch implements Runnable {
+
+		/**
+		 * 待连接节点(未阻断的新增节点)
+		 */
+		private final List<ServiceInstance> connects = new ArrayList<ServiceInstance>();
+
+		private final List<ServiceInstance[]> changed;
+
+		private final List<ServiceInstance> deleted;
+
+		private final List<ServiceInstance> added;
+
+		private Batch(List<ServiceInstance> added, List<ServiceInstance[]> changed, List<ServiceInstance> deleted) {
+			super();
+			this.added = added;
+			this.changed = changed;
+			this.deleted = deleted;
+		}
+
+		@Override
+		public void run() {
+			for (ServiceInstance[] each : this.changed) {
+				if (!DefaultImportedListener.this.blocker.blocked(each[0])) {
+					DefaultImportedListener.this.context.getOrCreate(new Service(each[0].service(), each[0].version(), each[0].catalog())).replace(each[0].host(), each[1].host());
+				}
+			}
+			for (ServiceInstance each : this.deleted) {
+				DefaultImportedListener.this.context.remove(each.host(), new Service(each.service(), each.version(), each.catalog()));
+			}
+			for (ServiceInstance each : this.added) {
+				if (!DefaultImportedListener.this.blocker.blocked(each)) {
+					DefaultImportedListener.this.context.getOrCreate(new Service(each.service(), each.version(), each.catalog())).wait(each.host());
+					this.connects.add(each);
+				}
+			}
+		}
+	}
 }
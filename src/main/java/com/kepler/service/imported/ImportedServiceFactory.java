@@ -1,9 +1,9 @@
 package com.kepler.service.imported;
 
 import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Future;
 
 import org.springframework.beans.factory.FactoryBean;
@@ -17,9 +17,11 @@ import com.kepler.config.PropertiesUtils;
 import com.kepler.header.Headers;
 import com.kepler.header.HeadersContext;
 import com.kepler.header.HeadersProcessor;
+import com.kepler.id.IDGenerator;
 import com.kepler.id.IDGenerators;
 import com.kepler.invoker.Invoker;
 import com.kepler.protocol.RequestFactories;
+import com.kepler.protocol.RequestFactory;
 import com.kepler.protocol.RequestValidation;
 import com.kepler.serial.SerialID;
 import com.kepler.serial.Serials;
@@ -43,7 +45,10 @@ public class ImportedServiceFactory<T> implements FactoryBean<T> {
 
 	private final HeadersContext header;
 
-	private final Set<Method> methods;
+	/**
+	 * Service(Interface)方法 -> 调用计划
+	 */
+	private final Map<Method, Plan> plans;
 
 	private final Imported imported;
 
@@ -92,9 +97,17 @@ public class ImportedServiceFactory<T> implements FactoryBean<T> {
 		this.generators = generators;
 		this.processor = processor;
 		this.validation = validation;
-		this.methods = new HashSet<>(Arrays.asList(clazz.getMethods()));
 		this.service = new Service(clazz.getName(), version, catalog);
 		this.profile = profiles.add(this.service, profile);
+		this.plans = this.plans(clazz);
+	}
+
+	private Map<Method, Plan> plans(Class<T> clazz) {
+		Map<Method, Plan> plans = new HashMap<Method, Plan>();
+		for (Method method : clazz.getMethods()) {
+			plans.put(method, new Plan(method));
+		}
+		return Collections.unmodifiableMap(plans);
 	}
 
 	public T getObject() throws Exception {
@@ -122,17 +135,85 @@ public class ImportedServiceFactory<T> implements FactoryBean<T> {
 		}
 
 		public Object intercept(Object obj, Method method, Object[] args, MethodProxy proxy) throws Throwable {
+			Plan plan = ImportedServiceFactory.this.plans.get(method);
 			// 如果为Service(Interface)方法则使用代理
-			return ImportedServiceFactory.this.methods.contains(method) ? this.invoke(method, args) : proxy.invokeSuper(obj, args);
+			return plan != null ? plan.invoke(args) : proxy.invokeSuper(obj, args);
+		}
+	}
+
+	/**
+	 * 方法调用计划, 代理创建时解析静态部分(方法名, 参数类型, Async), 配置相关部分(序列化, RequestFactory, ID生成器)按配置版本缓存
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class Plan {
+
+		private final Class<?>[] types;
+
+		private final boolean async;
+
+		private final Method method;
+
+		private final String name;
+
+		volatile private Binding binding;
+
+		private Plan(Method method) {
+			super();
+			this.method = method;
+			this.name = method.getName();
+			this.types = method.getParameterTypes();
+			// 如果返回类型为Future则标记为Async
+			this.async = Future.class.isAssignableFrom(method.getReturnType());
+		}
+
+		/**
+		 * 获取当前配置版本对应的绑定, 版本变化(ConfigWatcher推送等)时重建
+		 * 
+		 * @return
+		 */
+		private Binding binding() {
+			// 先获取版本再解析配置, 保证绑定不会比版本旧
+			long version = PropertiesUtils.version();
+			Binding binding = this.binding;
+			if (binding == null || binding.version != version) {
+				this.binding = (binding = new Binding(this.method, version));
+			}
+			return binding;
 		}
 
-		private Object invoke(Method method, Object[] args) throws Throwable {
+		public Object invoke(Object[] args) throws Throwable {
+			Binding binding = this.binding();
 			// 从当前上下文获取Headers并进行合并
 			Headers headers = Headers.ENABLED ? ImportedServiceFactory.this.processor.process(ImportedServiceFactory.this.service, ImportedServiceFactory.this.header.get()) : null;
-			// PropertiesUtils.profile(ImportedServiceFactory.this.profile.profile(service), SerialID.Serial.SERIAL_KEY, SerialID.Serial.SERIAL_VAL)), 获取与Service相关的序列化策略, 并将String转换为对应Byte
-			byte serial = SerialID.DYAMIC ? ImportedServiceFactory.this.serials.output(PropertiesUtils.profile(ImportedServiceFactory.this.profile.profile(ImportedServiceFactory.this.service), SerialID.SERIAL_KEY, SerialID.SERIAL_VAL)) : ImportedServiceFactory.this.serials.output(SerialID.SERIAL_VAL);
-			// 如果返回类型为Future(Future.class.isAssignableFrom(method.getReturnType()))则标记为Async
-			return ImportedServiceFactory.this.invoker.invoke(ImportedServiceFactory.this.validation.valid(ImportedServiceFactory.this.factory.factory(serial).request(headers, ImportedServiceFactory.this.service, method, Future.class.isAssignableFrom(method.getReturnType()), args, ImportedServiceFactory.this.generators.get(ImportedServiceFactory.this.service, method).generate(), serial)), method);
+			return ImportedServiceFactory.this.invoker.invoke(ImportedServiceFactory.this.validation.valid(binding.factory.request(headers, ImportedServiceFactory.this.service, this.name, this.async, args, this.types, binding.generator.generate(), binding.serial)), this.method);
+		}
+	}
+
+	/**
+	 * 指定配置版本下的调用参数
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class Binding {
+
+		private final IDGenerator generator;
+
+		private final RequestFactory factory;
+
+		private final long version;
+
+		private final byte serial;
+
+		private Binding(Method method, long version) {
+			super();
+			this.version = version;
+			// 获取与Service相关的序列化策略, 并将String转换为对应Byte
+			this.serial = SerialID.DYAMIC ? ImportedServiceFactory.this.serials.output(ImportedServiceFactory.this.profile.get(ImportedServiceFactory.this.service, SerialID.SERIAL_KEY, SerialID.SERIAL_VAL)) : ImportedServiceFactory.this.serials.output(SerialID.SERIAL_VAL);
+			this.factory = ImportedServiceFactory.this.factory.factory(this.serial);
+			this.generator = ImportedServiceFactory.this.generators.get(ImportedServiceFactory.this.service, method);
 		}
 	}
 }
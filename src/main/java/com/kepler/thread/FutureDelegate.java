@@ -1,7 +1,10 @@
 package com.kepler.thread;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -16,12 +19,17 @@ import com.kepler.KeplerLocalException;
  * 
  * @author kim 2016年1月15日
  */
-public class FutureDelegate implements Serializable, Future<Object> {
+public class FutureDelegate implements Serializable, FuturePromise {
 
 	private static final Log LOGGER = LogFactory.getLog(FutureDelegate.class);
 
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * 完成监听(不参与序列化, 反序列化时重建)
+	 */
+	private transient FutureListeners listeners = new FutureListeners();
+
 	volatile private Future<Object> actual;
 
 	/**
@@ -81,6 +89,8 @@ public class FutureDelegate implements Serializable, Future<Object> {
 			this.throwable = throwable;
 			this.notifyAll();
 		}
+		// 释放即完成
+		this.listeners.complete(this);
 		return this.actual;
 	}
 
@@ -91,9 +101,42 @@ public class FutureDelegate implements Serializable, Future<Object> {
 			this.binding = true;
 			this.notifyAll();
 		}
+		this.listen(future);
 		return this.actual;
 	}
 
+	/**
+	 * 实际Future完成时通知监听. 如果实际Future不支持监听则在其完成后的首次Get时通知
+	 * 
+	 * @param future
+	 */
+	private void listen(Future<Object> future) {
+		if (future instanceof FuturePromise) {
+			FuturePromise.class.cast(future).listener(new ForwardListener(), null);
+		} else if (future == null || future.isDone()) {
+			this.listeners.complete(this);
+		}
+	}
+
+	@Override
+	public FuturePromise listener(FutureListener listener, Executor executor) {
+		this.listeners.add(this, listener, executor);
+		return this;
+	}
+
+	/**
+	 * 绑定不支持监听且未完成的Future(如Mocker)时仅在Get时通知. 未绑定视为支持(重试绑定的均为AckFuture)
+	 */
+	@Override
+	public boolean listenable() {
+		// 先读取绑定状态, 绑定后Actual可见
+		if (!this.binding) {
+			return true;
+		}
+		Future<Object> actual = this.actual;
+		return actual == null || actual.isDone() || (actual instanceof FuturePromise && FuturePromise.class.cast(actual).listenable());
+	}
+
 	@Override
 	public boolean cancel(boolean interrupt) {
 		return this.actual == null ? false : this.actual.cancel(interrupt);
@@ -122,6 +165,32 @@ public class FutureDelegate implements Serializable, Future<Object> {
 	public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
 		// Waiting, 并在调用实际Future前对错误进行校验
 		this.waiting().check4exception();
-		return this.actual == null ? null : this.actual.get(timeout, unit);
+		try {
+			return this.actual == null ? null : this.actual.get(timeout, unit);
+		} finally {
+			// 不支持监听的Future
+			if (this.actual != null && !(this.actual instanceof FuturePromise) && this.actual.isDone()) {
+				this.listeners.complete(this);
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+		input.defaultReadObject();
+		this.listeners = new FutureListeners();
+	}
+
+	/**
+	 * 转发实际Future的完成通知
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class ForwardListener implements FutureListener {
+
+		@Override
+		public void complete(Future<Object> future) {
+			FutureDelegate.this.listeners.complete(FutureDelegate.this);
+		}
 	}
 }
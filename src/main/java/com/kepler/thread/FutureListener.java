@@ -0,0 +1,19 @@
+package com.kepler.thread;
+
+import java.util.concurrent.Future;
+
+/**
+ * Future完成监听
+ * 
+ * @author KimShen
+ *
+ */
+public interface FutureListener {
+
+	/**
+	 * Future完成(成功, 异常, 超时或取消)时回调, 此时Future.get()不会堵塞
+	 * 
+	 * @param future
+	 */
+	public void complete(Future<Object> future);
+}
@@ -0,0 +1,106 @@
+package com.kepler.thread;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * 监听集合, 仅通知一次. 完成后注册的监听立即回调
+ * 
+ * @author KimShen
+ *
+ */
+public class FutureListeners {
+
+	private static final Log LOGGER = LogFactory.getLog(FutureListeners.class);
+
+	/**
+	 * 逆序链表
+	 */
+	private Listener head;
+
+	/**
+	 * 是否已通知
+	 */
+	private boolean completed;
+
+	public void add(Future<Object> future, FutureListener listener, Executor executor) {
+		synchronized (this) {
+			if (!this.completed) {
+				this.head = new Listener(listener, executor, this.head);
+				return;
+			}
+		}
+		new Listener(listener, executor, null).fire(future);
+	}
+
+	/**
+	 * 通知所有监听(按注册顺序)
+	 * 
+	 * @param future
+	 */
+	public void complete(Future<Object> future) {
+		Listener head = null;
+		synchronized (this) {
+			// Guard case, 已通知
+			if (this.completed) {
+				return;
+			}
+			this.completed = true;
+			head = this.head;
+			this.head = null;
+		}
+		// 逆序恢复为注册顺序
+		Listener ordered = null;
+		for (Listener current = head, next = null; current != null; current = next) {
+			next = current.next;
+			current.next = ordered;
+			ordered = current;
+		}
+		for (Listener current = ordered; current != null; current = current.next) {
+			current.fire(future);
+		}
+	}
+
+	private static class Listener implements Runnable {
+
+		private final FutureListener listener;
+
+		private final Executor executor;
+
+		private Future<Object> future;
+
+		private Listener next;
+
+		private Listener(FutureListener listener, Executor executor, Listener next) {
+			super();
+			this.listener = listener;
+			this.executor = executor;
+			this.next = next;
+		}
+
+		public void fire(Future<Object> future) {
+			this.future = future;
+			try {
+				if (this.executor != null) {
+					this.executor.execute(this);
+				} else {
+					this.run();
+				}
+			} catch (Throwable e) {
+				FutureListeners.LOGGER.error(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.listener.complete(this.future);
+			} catch (Throwable e) {
+				FutureListeners.LOGGER.error(e.getMessage(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.kepler.thread;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * 支持完成监听的Future
+ * 
+ * @author KimShen
+ *
+ */
+public interface FuturePromise extends Future<Object> {
+
+	/**
+	 * 注册完成监听, 如果已完成则立即回调
+	 * 
+	 * @param listener
+	 * @param executor 回调线程, Null表示在完成线程(如EventLoop)中执行, 仅用于轻量回调
+	 * @return
+	 */
+	public FuturePromise listener(FutureListener listener, Executor executor);
+
+	/**
+	 * 完成时是否主动通知监听. False表示仅在Get时通知, 调用方需自行等待
+	 * 
+	 * @return
+	 */
+	public boolean listenable();
+}
@@ -0,0 +1,136 @@
+package com.kepler.thread;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.kepler.config.PropertiesUtils;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * 独立有界线程池, 饱和时抛出RejectedExecutionException(不在调用线程执行)
+ * 
+ * @author KimShen
+ *
+ */
+public class WorkerExecutor extends ThreadShutdown implements Executor {
+
+	private static final String PREFIX = WorkerExecutor.class.getName().toLowerCase() + ".";
+
+	private static final int THREAD_CORE_DEF = Math.max(Runtime.getRuntime().availableProcessors() * 2, 16);
+
+	private static final Log LOGGER = LogFactory.getLog(WorkerExecutor.class);
+
+	/**
+	 * 累计拒绝数量
+	 */
+	private final AtomicLong rejected = new AtomicLong();
+
+	private final String name;
+
+	private final int core;
+
+	private final int max;
+
+	private final int queue;
+
+	private final int keepalive;
+
+	private final boolean waiting;
+
+	private final int interval;
+
+	private ThreadPoolExecutor threads;
+
+	/**
+	 * @param name 名称, 配置前缀为com.kepler.thread.workerexecutor.[name]
+	 */
+	public WorkerExecutor(String name) {
+		super();
+		this.name = name;
+		this.core = PropertiesUtils.get(WorkerExecutor.PREFIX + name + ".core", WorkerExecutor.THREAD_CORE_DEF);
+		this.max = PropertiesUtils.get(WorkerExecutor.PREFIX + name + ".max", this.core * 2);
+		this.queue = PropertiesUtils.get(WorkerExecutor.PREFIX + name + ".queue", 1024);
+		this.keepalive = PropertiesUtils.get(WorkerExecutor.PREFIX + name + ".keepalive", 60000);
+		this.waiting = PropertiesUtils.get(WorkerExecutor.PREFIX + name + ".shutdown_waiting", false);
+		this.interval = PropertiesUtils.get(WorkerExecutor.PREFIX + name + ".shutdown_interval", 1000);
+	}
+
+	/**
+	 * For Spring
+	 */
+	public void init() {
+		WorkerExecutor.LOGGER.info("Worker " + this.name + " [core=" + this.core + "][max=" + this.max + "][queue=" + this.queue + "]");
+		this.threads = new ThreadPoolExecutor(this.core, this.max, this.keepalive, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(this.queue), new DefaultThreadFactory("kepler-" + this.name), new RejectedPolicy());
+	}
+
+	/**
+	 * For Spring
+	 */
+	protected void destroy() throws Exception {
+		super.destroy(this.threads);
+	}
+
+	@Override
+	public void execute(Runnable command) throws RejectedExecutionException {
+		this.threads.execute(command);
+	}
+
+	public String name() {
+		return this.name;
+	}
+
+	/**
+	 * 当前排队数量
+	 * 
+	 * @return
+	 */
+	public int queue() {
+		return this.threads.getQueue().size();
+	}
+
+	/**
+	 * 当前活跃线程
+	 * 
+	 * @return
+	 */
+	public int active() {
+		return this.threads.getActiveCount();
+	}
+
+	/**
+	 * 累计拒绝数量
+	 * 
+	 * @return
+	 */
+	public long rejected() {
+		return this.rejected.get();
+	}
+
+	@Override
+	protected boolean waiting() {
+		return this.waiting;
+	}
+
+	@Override
+	protected int interval() {
+		return this.interval;
+	}
+
+	private class RejectedPolicy implements RejectedExecutionHandler {
+
+		@Override
+		public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+			WorkerExecutor.this.rejected.incrementAndGet();
+			throw new RejectedExecutionException("Worker " + WorkerExecutor.this.name + " busy. [active=" + executor.getActiveCount() + "][queue=" + executor.getQueue().size() + "]");
+		}
+	}
+}
@@ -50,7 +50,7 @@ public class AccessTokenContext implements TokenContext {
 	@Override
 	public Request set(Request request, ChannelInvoker invoker) {
 		// 获取服务级别的访问Token
-		String token = PropertiesUtils.profile(this.profile.profile(request.service()), AccessTokenContext.TOKEN_PROFILE_KEY, AccessTokenContext.TOKEN_PROFILE_DEF);
+		String token = this.profile.get(request.service(), AccessTokenContext.TOKEN_PROFILE_KEY, AccessTokenContext.TOKEN_PROFILE_DEF);
 		request.put(AccessTokenContext.TOKEN_HEADER, token);
 		return request;
 	}
@@ -58,7 +58,7 @@ public class AccessTokenContext implements TokenContext {
 	@Override
 	public Request valid(Request request) throws KeplerValidateException {
 		// 如果开启校验
-		if (AccessTokenContext.ENABLED && !StringUtils.equals(PropertiesUtils.profile(this.profile.profile(request.service()), AccessTokenContext.TOKEN_PROFILE_KEY, AccessTokenContext.TOKEN_PROFILE_DEF), request.get(AccessTokenContext.TOKEN_HEADER))) {
+		if (AccessTokenContext.ENABLED && !StringUtils.equals(this.profile.get(request.service(), AccessTokenContext.TOKEN_PROFILE_KEY, AccessTokenContext.TOKEN_PROFILE_DEF), request.get(AccessTokenContext.TOKEN_HEADER))) {
 			throw new KeplerValidateException("Unvalid access token for Request: " + request);
 		}
 		return request;
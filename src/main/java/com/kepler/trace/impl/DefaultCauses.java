@@ -1,7 +1,7 @@
 package com.kepler.trace.impl;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
@@ -24,18 +24,18 @@ import com.kepler.trace.TraceCauses;
 public class DefaultCauses implements TraceCauses {
 
 	// Trace数量记录, 最多30条, 默认15条
-	private static final int MAX = Math.max(Integer.valueOf(PropertiesUtils.get(DefaultCauses.class.getName().toLowerCase() + ".max", "15")), 30);
+	private static final int MAX = Math.min(Integer.valueOf(PropertiesUtils.get(DefaultCauses.class.getName().toLowerCase() + ".max", "15")), 30);
 
 	private static final Log LOGGER = LogFactory.getLog(DefaultCauses.class);
 
 	private final Quiet quiet;
 
 	/**
-	 * 周期性缓存池 
+	 * 周期性缓存池(每周期最多写入MAX次, 并发写入使用COW)
 	 */
-	volatile private List<TraceCause> causes_one = new ArrayList<TraceCause>(DefaultCauses.MAX);
+	volatile private List<TraceCause> causes_one = new CopyOnWriteArrayList<TraceCause>();
 
-	volatile private List<TraceCause> causes_two = new ArrayList<TraceCause>(DefaultCauses.MAX);
+	volatile private List<TraceCause> causes_two = new CopyOnWriteArrayList<TraceCause>();
 
 	private final AtomicInteger index = new AtomicInteger();
 
@@ -59,32 +59,50 @@ public class DefaultCauses implements TraceCauses {
 	}
 
 	/**
-	 * 超过限制则跳过
+	 * 超过限制则跳过, 仅输出周期内允许的记录
 	 * 
 	 * @return
 	 */
-	private boolean allow(Service service, String method, String cause) {
-		DefaultCauses.LOGGER.info("[warn-message][" + service + "][method=" + method + "][cause=" + cause + "][trace=" + TraceContext.getTrace() + "]");
-		return this.index.getAndIncrement() > DefaultCauses.MAX ? false : true;
+	private boolean allow() {
+		return this.index.getAndIncrement() < DefaultCauses.MAX;
+	}
+
+	/**
+	 * 超过限制的记录仅在Debug级别输出
+	 */
+	private void log(boolean allowed, Service service, String method, String cause) {
+		if (!allowed && !DefaultCauses.LOGGER.isDebugEnabled()) {
+			return;
+		}
+		String message = "[warn-message][" + service + "][method=" + method + "][cause=" + cause + "][trace=" + TraceContext.getTrace() + "]";
+		if (allowed) {
+			DefaultCauses.LOGGER.info(message);
+		} else {
+			DefaultCauses.LOGGER.debug(message);
+		}
 	}
 
 	public void put(Service service, String method, String cause) {
-		if (!this.allow(service, method, cause)) {
+		boolean allowed = this.allow();
+		this.log(allowed, service, method, cause);
+		if (!allowed) {
 			return;
 		}
 		// 开启收集, 并且为非静默异常
-		if (PropertiesUtils.profile(this.profile.profile(service), TraceTask.ENABLED_KEY, TraceTask.ENABLED_DEF)) {
+		if (this.profile.get(service, TraceTask.ENABLED_KEY, TraceTask.ENABLED_DEF)) {
 			this.causes_one.add(new DefaultCause(cause, service, method, TraceContext.getTrace()));
 		}
 	}
 
 	@Override
 	public void put(Request request, Throwable throwable) {
-		if (!this.allow(request.service(), request.method(), throwable.toString())) {
+		boolean allowed = this.allow();
+		this.log(allowed, request.service(), request.method(), throwable.toString());
+		if (!allowed) {
 			return;
 		}
 		// 开启收集, 并且为非静默异常
-		if (PropertiesUtils.profile(this.profile.profile(request.service()), TraceTask.ENABLED_KEY, TraceTask.ENABLED_DEF) && !this.quiet.quiet(request, throwable.getClass())) {
+		if (this.profile.get(request.service(), TraceTask.ENABLED_KEY, TraceTask.ENABLED_DEF) && !this.quiet.quiet(request, throwable.getClass())) {
 			this.causes_one.add(new DefaultCause(throwable, request.service(), request.method(), TraceContext.getTrace()));
 		}
 	}
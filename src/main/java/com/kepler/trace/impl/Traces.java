@@ -1,25 +1,112 @@
 package com.kepler.trace.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.kepler.admin.status.Status;
+import com.kepler.config.Profile;
+import com.kepler.config.PropertiesUtils;
 import com.kepler.extension.Extension;
 import com.kepler.protocol.Request;
 import com.kepler.protocol.Response;
 import com.kepler.trace.Trace;
 
 /**
+ * 采样后写入有界队列, 由后台线程批量分发至已注册Trace, 请求线程不等待Trace实现
+ *
  * @author kim 2015年12月24日
  */
-public class Traces implements Trace, Extension {
+public class Traces implements Runnable, Trace, Extension, Status {
+
+	/**
+	 * 队列长度, 超出则丢弃
+	 */
+	private static final int QUEUE_SIZE = PropertiesUtils.get(Traces.class.getName().toLowerCase() + ".queue_size", 10000);
+
+	/**
+	 * 单批最大数量
+	 */
+	private static final int BATCH = PropertiesUtils.get(Traces.class.getName().toLowerCase() + ".batch", 200);
+
+	/**
+	 * 队列为空时最大等待时间(毫秒), 仅影响关闭检查
+	 */
+	private static final int INTERVAL = PropertiesUtils.get(Traces.class.getName().toLowerCase() + ".interval", 60000);
+
+	/**
+	 * 头部采样比例(百分比), 服务级配置
+	 */
+	private static final String RATE_KEY = Traces.class.getName().toLowerCase() + ".rate";
+
+	private static final int RATE_DEF = PropertiesUtils.get(Traces.RATE_KEY, 100);
+
+	/**
+	 * 异常请求是否总是采样, 服务级配置
+	 */
+	private static final String ERROR_KEY = Traces.class.getName().toLowerCase() + ".error";
+
+	private static final boolean ERROR_DEF = PropertiesUtils.get(Traces.ERROR_KEY, true);
+
+	/**
+	 * 慢请求阈值(毫秒), 超过则总是采样, 0表示关闭, 服务级配置
+	 */
+	private static final String SLOW_KEY = Traces.class.getName().toLowerCase() + ".slow";
+
+	private static final long SLOW_DEF = PropertiesUtils.get(Traces.SLOW_KEY, 0L);
 
 	private static final Log LOGGER = LogFactory.getLog(Traces.class);
 
 	private final List<Trace> traces = new ArrayList<Trace>();
 
+	/**
+	 * 生产/消费分离锁, 请求线程不与分发线程竞争
+	 */
+	private final BlockingQueue<Record> records = new LinkedBlockingQueue<Record>(Traces.QUEUE_SIZE);
+
+	private final AtomicLong exported = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final AtomicLong ignored = new AtomicLong();
+
+	private final ThreadPoolExecutor threads;
+
+	private final Profile profile;
+
+	volatile private boolean shutdown = false;
+
+	public Traces(Profile profile, ThreadPoolExecutor threads) {
+		super();
+		this.profile = profile;
+		this.threads = threads;
+	}
+
+	/**
+	 * For Spring
+	 */
+	public void init() {
+		// 单线程分发
+		this.threads.execute(this);
+	}
+
+	/**
+	 * For Spring
+	 */
+	public void destroy() {
+		this.shutdown = true;
+	}
+
 	@Override
 	public Traces install(Object instance) {
 		this.traces.add(Trace.class.cast(instance));
@@ -33,14 +120,126 @@ public class Traces implements Trace, Extension {
 
 	@Override
 	public void trace(Request request, Response response, String local, String remote, long waiting, long elapse, long received) {
-		if (!this.traces.isEmpty()) {
+		// Guard case, 未注册Trace
+		if (this.traces.isEmpty()) {
+			return;
+		}
+		if (!this.sampled(request, response, elapse)) {
+			this.ignored.incrementAndGet();
+			return;
+		}
+		// 超过队列长度则丢弃
+		if (!this.records.offer(new Record(request, response, local, remote, waiting, elapse, received))) {
+			this.dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 异常及慢请求总是采样, 其余按Trace ID头部采样(同一调用链决策一致)
+	 *
+	 * @param request
+	 * @param response
+	 * @param elapse
+	 * @return
+	 */
+	private boolean sampled(Request request, Response response, long elapse) {
+		if (!response.valid() && this.profile.get(request.service(), Traces.ERROR_KEY, Traces.ERROR_DEF)) {
+			return true;
+		}
+		long slow = this.profile.get(request.service(), Traces.SLOW_KEY, Traces.SLOW_DEF);
+		if (slow > 0 && elapse >= slow) {
+			return true;
+		}
+		int rate = this.profile.get(request.service(), Traces.RATE_KEY, Traces.RATE_DEF);
+		if (rate >= 100) {
+			return true;
+		}
+		String trace = request.get(Trace.TRACE);
+		int hash = trace != null ? trace.hashCode() & Integer.MAX_VALUE : ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+		return hash % 100 < rate;
+	}
+
+	@Override
+	public Map<String, Object> get() {
+		Map<String, Object> status = new HashMap<String, Object>();
+		status.put("trace_exported", this.exported.getAndSet(0));
+		status.put("trace_dropped", this.dropped.getAndSet(0));
+		status.put("trace_ignored", this.ignored.getAndSet(0));
+		status.put("trace_queue", this.records.size());
+		return status;
+	}
+
+	/**
+	 * 批量分发
+	 *
+	 * @param batch
+	 */
+	private void export(List<Record> batch) {
+		for (Record record : batch) {
 			for (Trace each : this.traces) {
 				try {
-					each.trace(request, response, local, remote, waiting, elapse, received);
+					each.trace(record.request, record.response, record.local, record.remote, record.waiting, record.elapse, record.received);
 				} catch (Throwable throwable) {
 					Traces.LOGGER.warn(throwable.getMessage(), throwable);
 				}
 			}
 		}
+		this.exported.addAndGet(batch.size());
+	}
+
+	@Override
+	public void run() {
+		List<Record> batch = new ArrayList<Record>(Traces.BATCH);
+		while (!this.shutdown) {
+			try {
+				// 阻塞等待首条记录, 队列为空时不占用CPU
+				Record record = this.records.poll(Traces.INTERVAL, TimeUnit.MILLISECONDS);
+				if (record == null) {
+					continue;
+				}
+				batch.add(record);
+				this.records.drainTo(batch, Traces.BATCH - 1);
+				this.export(batch);
+			} catch (Throwable e) {
+				Traces.LOGGER.debug(e.getMessage(), e);
+			} finally {
+				batch.clear();
+			}
+		}
+		Traces.LOGGER.warn("Traces shutdown ... ");
+	}
+
+	/**
+	 * 待分发记录, 仅持有引用
+	 *
+	 * @author KimShen
+	 *
+	 */
+	private static class Record {
+
+		private final Request request;
+
+		private final Response response;
+
+		private final String local;
+
+		private final String remote;
+
+		private final long waiting;
+
+		private final long elapse;
+
+		private final long received;
+
+		private Record(Request request, Response response, String local, String remote, long waiting, long elapse, long received) {
+			super();
+			this.request = request;
+			this.response = response;
+			this.local = local;
+			this.remote = remote;
+			this.waiting = waiting;
+			this.elapse = elapse;
+			this.received = received;
+		}
 	}
 }
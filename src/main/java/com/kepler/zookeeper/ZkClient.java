@@ -4,6 +4,9 @@ import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.zookeeper.AsyncCallback.ChildrenCallback;
+import org.apache.zookeeper.AsyncCallback.DataCallback;
+import org.apache.zookeeper.AsyncCallback.StatCallback;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooKeeper;
@@ -62,6 +65,27 @@ public class ZkClient {
 		return this.zoo.getChildren(path, watcher);
 	}
 
+	/**
+	 * 异步获取节点数据(回调于ZK事件线程)
+	 */
+	public void getData(String path, boolean watcher, DataCallback callback, Object context) {
+		this.zoo.getData(path, watcher, callback, context);
+	}
+
+	/**
+	 * 异步获取子节点(回调于ZK事件线程)
+	 */
+	public void getChildren(String path, boolean watcher, ChildrenCallback callback, Object context) {
+		this.zoo.getChildren(path, watcher, callback, context);
+	}
+
+	/**
+	 * 异步获取节点Stat(回调于ZK事件线程)
+	 */
+	public void exists(String path, boolean watcher, StatCallback callback, Object context) {
+		this.zoo.exists(path, watcher, callback, context);
+	}
+
 	public void setData(String path, byte[] data, int version) throws Exception {
 		this.zoo.setData(path, data, version);
 	}
@@ -3,6 +3,7 @@ package com.kepler.zookeeper;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -14,16 +15,22 @@ import java.util.concurrent.DelayQueue;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.zookeeper.AsyncCallback.ChildrenCallback;
+import org.apache.zookeeper.AsyncCallback.DataCallback;
+import org.apache.zookeeper.AsyncCallback.StatCallback;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException.Code;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.KeeperException.NodeExistsException;
 import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooDefs.Ids;
+import org.apache.zookeeper.data.Stat;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.annotation.AnnotationUtils;
@@ -77,6 +84,16 @@ public class ZkContext implements Demotion, Imported, Exported, ExportedInfo, Ap
 
 	private static final long REFRESH_INTERVAL = PropertiesUtils.get(ZkContext.class.getName().toLowerCase() + ".refresh", 10 * 1000);
 
+	/**
+	 * 刷新时同时进行的异步ZK请求数量
+	 */
+	private static final int REFRESH_CONCURRENT = PropertiesUtils.get(ZkContext.class.getName().toLowerCase() + ".refresh_concurrent", 64);
+
+	/**
+	 * 刷新等待ZK响应的最大时间, 超时放弃本轮
+	 */
+	private static final long REFRESH_TIMEOUT = PropertiesUtils.get(ZkContext.class.getName().toLowerCase() + ".refresh_timeout", ZkContext.REFRESH_INTERVAL);
+
 	private static final int INTERVAL = PropertiesUtils.get(ZkContext.class.getName().toLowerCase() + ".interval", 60000);
 
 	private static final int DELAY = PropertiesUtils.get(ZkContext.class.getName().toLowerCase() + ".delay", 30000);
@@ -1074,8 +1091,202 @@ public class ZkContext implements Demotion, Imported, Exported, ExportedInfo, Ap
 		}
 	}
 
+	/**
+	 * 节点版本快照(用于对比Stat, 未变化节点无需获取数据及反序列化)
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class Node {
+
+		private final ServiceInstance instance;
+
+		private final long czxid;
+
+		private final int version;
+
+		private Node(Stat stat, ServiceInstance instance) {
+			super();
+			this.czxid = stat.getCzxid();
+			this.version = stat.getVersion();
+			this.instance = instance;
+		}
+
+		/**
+		 * 节点是否变化(重建或数据修改)
+		 * 
+		 * @param stat
+		 * @return
+		 */
+		public boolean changed(Stat stat) {
+			return this.czxid != stat.getCzxid() || this.version != stat.getVersion();
+		}
+	}
+
+	/**
+	 * 单轮刷新, 异步请求并限制并发. 回调仅记录结果(ZK事件线程), 对比与反序列化在刷新线程完成
+	 * 
+	 * @author KimShen
+	 *
+	 */
+	private class Round implements ChildrenCallback, StatCallback, DataCallback {
+
+		private final Semaphore permits = new Semaphore(ZkContext.REFRESH_CONCURRENT);
+
+		/**
+		 * 整轮(子节点, Stat/数据)共享超时
+		 */
+		private final long deadline = System.currentTimeMillis() + ZkContext.REFRESH_TIMEOUT;
+
+		/**
+		 * 子节点(Path -> Children)
+		 */
+		private final Map<String, List<String>> children = new ConcurrentHashMap<String, List<String>>();
+
+		/**
+		 * 节点Stat(Path -> Stat)
+		 */
+		private final Map<String, Stat> stats = new ConcurrentHashMap<String, Stat>();
+
+		/**
+		 * 节点数据(Path -> Data)
+		 */
+		private final Map<String, byte[]> datas = new ConcurrentHashMap<String, byte[]>();
+
+		/**
+		 * 已删除节点
+		 */
+		private final Set<String> missing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		/**
+		 * 获取子节点
+		 * 
+		 * @param path
+		 * @throws Exception
+		 */
+		public void children(String path) throws Exception {
+			this.acquire();
+			ZkContext.this.zoo.getChildren(path, false, this, null);
+		}
+
+		/**
+		 * 获取节点Stat
+		 * 
+		 * @param path
+		 * @throws Exception
+		 */
+		public void stat(String path) throws Exception {
+			this.acquire();
+			ZkContext.this.zoo.exists(path, false, this, null);
+		}
+
+		/**
+		 * 获取节点数据(含Stat)
+		 * 
+		 * @param path
+		 * @throws Exception
+		 */
+		public void data(String path) throws Exception {
+			this.acquire();
+			ZkContext.this.zoo.getData(path, false, this, null);
+		}
+
+		/**
+		 * 本轮剩余时间
+		 * 
+		 * @return
+		 */
+		private long remain() {
+			return Math.max(this.deadline - System.currentTimeMillis(), 0);
+		}
+
+		private void acquire() throws Exception {
+			if (!this.permits.tryAcquire(this.remain(), TimeUnit.MILLISECONDS)) {
+				throw new KeplerLocalException("Refresh timeout, acquire permit failed ... ");
+			}
+		}
+
+		/**
+		 * 等待已提交请求全部完成
+		 * 
+		 * @throws Exception
+		 */
+		public Round await() throws Exception {
+			if (!this.permits.tryAcquire(ZkContext.REFRESH_CONCURRENT, this.remain(), TimeUnit.MILLISECONDS)) {
+				throw new KeplerLocalException("Refresh timeout, waiting for zookeeper ... ");
+			}
+			this.permits.release(ZkContext.REFRESH_CONCURRENT);
+			return this;
+		}
+
+		/**
+		 * 非OK/NONODE的失败均不记录, 由刷新线程保留上一轮状态
+		 * 
+		 * @param rc
+		 * @param path
+		 * @return 是否成功
+		 */
+		private boolean code(int rc, String path) {
+			switch (Code.get(rc)) {
+			case OK:
+				return true;
+			case NONODE:
+				this.missing.add(path);
+				return false;
+			default:
+				ZkContext.LOGGER.warn("[refresh-failed][path=" + path + "][code=" + Code.get(rc) + "]");
+				return false;
+			}
+		}
+
+		@Override
+		public void processResult(int rc, String path, Object ctx, List<String> children) {
+			try {
+				if (this.code(rc, path)) {
+					Collections.sort(children);
+					this.children.put(path, children);
+				}
+			} finally {
+				this.permits.release();
+			}
+		}
+
+		@Override
+		public void processResult(int rc, String path, Object ctx, Stat stat) {
+			try {
+				if (this.code(rc, path)) {
+					this.stats.put(path, stat);
+				}
+			} finally {
+				this.permits.release();
+			}
+		}
+
+		@Override
+		public void processResult(int rc, String path, Object ctx, byte[] data, Stat stat) {
+			try {
+				if (this.code(rc, path)) {
+					this.stats.put(path, stat);
+					this.datas.put(path, data);
+				}
+			} finally {
+				this.permits.release();
+			}
+		}
+	}
+
 	private class RefreshRunnable implements Runnable {
 
+		/**
+		 * 上一轮子节点(服务路径 -> 已排序Children), 仅刷新线程访问
+		 */
+		private final Map<String, List<String>> children = new HashMap<String, List<String>>();
+
+		/**
+		 * 上一轮节点(节点路径 -> Node), 仅刷新线程访问
+		 */
+		private final Map<String, Node> nodes = new HashMap<String, Node>();
+
 		private volatile boolean running = false;
 
 		@Override
@@ -1085,22 +1296,7 @@ public class ZkContext implements Demotion, Imported, Exported, ExportedInfo, Ap
 			}
 			try {
 				this.running = true;
-				Map<String, ServiceInstance> current = new HashMap<String, ServiceInstance>();
-				Set<Service> imported = ZkContext.this.snapshot.imported;
-				for (Service service : imported) {
-					String path = ZkContext.this.road.road(ZkContext.ROOT, service.service(), service.versionAndCatalog());
-					List<String> nodes = ZkContext.this.zoo.getChildren(path, null);
-					for (String node : nodes) {
-						try {
-							byte[] data = ZkContext.this.zoo.getData(path + "/" + node, false, null);
-							ServiceInstance instance = ZkContext.this.serials.def4input().input(data, ServiceInstance.class);
-							current.put(path + "/" + node, instance);
-						} catch (NodeExistsException e) {
-							ZkContext.LOGGER.warn("Concurrent case. Node not exists");
-						}
-					}
-				}
-				this.handle(current, ZkContext.this.snapshot.instances);
+				this.handle(this.current(), ZkContext.this.snapshot.instances);
 			} catch (Exception e) {
 				ZkContext.LOGGER.error(e.getMessage(), e);
 			} finally {
@@ -1108,10 +1304,106 @@ public class ZkContext implements Demotion, Imported, Exported, ExportedInfo, Ap
 			}
 		}
 
+		/**
+		 * 异步获取当前节点, 仅获取变化节点的数据
+		 * 
+		 * @return 节点路径 -> 实例
+		 * @throws Exception
+		 */
+		private Map<String, ServiceInstance> current() throws Exception {
+			Round round = new Round();
+			List<String> paths = new ArrayList<String>();
+			for (Service service : ZkContext.this.snapshot.imported) {
+				paths.add(ZkContext.this.road.road(ZkContext.ROOT, service.service(), service.versionAndCatalog()));
+			}
+			// 1. 获取所有服务的子节点
+			for (String path : paths) {
+				round.children(path);
+			}
+			round.await();
+			// 2. 对比子节点, 新增节点获取数据, 保留节点获取Stat
+			List<String> retained = new ArrayList<String>();
+			for (String path : paths) {
+				List<String> current = round.children.get(path);
+				if (current == null) {
+					continue;
+				}
+				List<String> previous = this.children.get(path);
+				DiffContainer<String> container = new DiffContainer<String>(previous != null ? previous : Collections.<String> emptyList(), current);
+				for (String child : container.deleted()) {
+					this.nodes.remove(path + "/" + child);
+				}
+				Set<String> added = new HashSet<String>(container.added());
+				for (String child : current) {
+					if (added.contains(child)) {
+						round.data(path + "/" + child);
+					} else {
+						round.stat(path + "/" + child);
+						retained.add(path + "/" + child);
+					}
+				}
+			}
+			round.await();
+			// 3. Stat变化(或无本地版本)的保留节点获取数据
+			for (String path : retained) {
+				Stat stat = round.stats.get(path);
+				Node node = this.nodes.get(path);
+				if (stat != null && (node == null || node.changed(stat))) {
+					round.data(path);
+				}
+			}
+			round.await();
+			// 仅反序列化变化节点
+			for (Map.Entry<String, byte[]> each : round.datas.entrySet()) {
+				try {
+					this.nodes.put(each.getKey(), new Node(round.stats.get(each.getKey()), ZkContext.this.serials.def4input().input(each.getValue(), ServiceInstance.class)));
+				} catch (Exception e) {
+					ZkContext.LOGGER.error("[refresh-decode][path=" + each.getKey() + "]" + e.getMessage(), e);
+				}
+			}
+			return this.merge(paths, round);
+		}
+
+		/**
+		 * 合并本轮结果. 获取子节点失败的服务沿用上一轮节点, 已删除节点移除
+		 * 
+		 * @param paths
+		 * @param round
+		 * @return
+		 */
+		private Map<String, ServiceInstance> merge(List<String> paths, Round round) {
+			Map<String, ServiceInstance> current = new HashMap<String, ServiceInstance>();
+			Map<String, List<String>> children = new HashMap<String, List<String>>();
+			for (String path : paths) {
+				List<String> each = round.children.get(path);
+				if (each == null) {
+					each = this.children.get(path);
+					// 未加载过的服务
+					if (each == null) {
+						continue;
+					}
+				}
+				children.put(path, each);
+				for (String child : each) {
+					String actual = path + "/" + child;
+					Node node = round.missing.contains(actual) ? null : this.nodes.get(actual);
+					if (node != null) {
+						current.put(actual, node.instance);
+					}
+				}
+			}
+			// 移除已卸载服务及已删除节点
+			this.children.clear();
+			this.children.putAll(children);
+			this.nodes.keySet().retainAll(current.keySet());
+			ZkContext.LOGGER.debug("[refresh-round][services=" + paths.size() + "][nodes=" + current.size() + "][fetched=" + round.datas.size() + "]");
+			return current;
+		}
+
 		private void handle(Map<String, ServiceInstance> current, Map<String, ServiceInstance> snapshot) throws Exception {
-			List<ServiceInstance[]> update = new ArrayList<ServiceInstance[]>();
-			List<ServiceInstance> install = new ArrayList<ServiceInstance>();
-			List<ServiceInstance> remove = new ArrayList<ServiceInstance>();
+			Map<String, ServiceInstance[]> update = new HashMap<String, ServiceInstance[]>();
+			Map<String, ServiceInstance> install = new HashMap<String, ServiceInstance>();
+			Map<String, ServiceInstance> remove = new HashMap<String, ServiceInstance>();
 			for (String each : current.keySet()) {
 				// 是否在Instance缓存中
 				boolean in_host = ZkContext.this.hosts.getOrCreate(new Service(current.get(each))).contain(current.get(each).host());
@@ -1119,58 +1411,47 @@ public class ZkContext implements Demotion, Imported, Exported, ExportedInfo, Ap
 				boolean in_snap = snapshot.containsKey(each);
 				if (!in_snap || !in_host) {
 					ZkContext.LOGGER.warn("[node pre-install][in-host=" + in_host + "][in-snap=" + in_snap + "][instance=" + current.get(each) + "]");
-					install.add(current.get(each));
+					install.put(each, current.get(each));
 				} else {
 					if (current.get(each).host().propertyChanged(snapshot.get(each).host())) {
 						ZkContext.LOGGER.warn("[node pre-update][instance=" + current.get(each) + "]");
-						update.add(new ServiceInstance[] { snapshot.get(each), current.get(each) });
+						update.put(each, new ServiceInstance[] { snapshot.get(each), current.get(each) });
 					}
 				}
 			}
 			// 移除节点
 			for (String each : snapshot.keySet()) {
 				if (!current.containsKey(each)) {
-					ZkContext.LOGGER.warn("[node pre-delete][instance=" + current.get(each) + "]");
-					remove.add(snapshot.get(each));
+					ZkContext.LOGGER.warn("[node pre-delete][instance=" + snapshot.get(each) + "]");
+					remove.put(each, snapshot.get(each));
 				}
 			}
 			ZkContext.LOGGER.info("[refresh][install=" + install.size() + "][update=" + update.size() + "][remove=" + remove.size() + "]");
-			this.handleUpdate(update);
-			this.handleRemove(remove);
-			this.handleInstall(install);
-		}
-
-		private void handleInstall(List<ServiceInstance> added) throws Exception {
-			for (ServiceInstance instance : added) {
-				try {
-					ZkContext.LOGGER.warn("[node install]" + instance);
-					ZkContext.this.listener.add(instance);
-				} catch (Exception e) {
-					ZkContext.LOGGER.error(e.getMessage(), e);
-				}
+			// Guard case, 无变化
+			if (install.isEmpty() && update.isEmpty() && remove.isEmpty()) {
+				return;
 			}
+			// 一次性提交, 路由表原子更新
+			ZkContext.this.listener.refresh(new ArrayList<ServiceInstance>(install.values()), new ArrayList<ServiceInstance[]>(update.values()), new ArrayList<ServiceInstance>(remove.values()));
+			this.snapshot(install, update, remove);
 		}
 
-		private void handleRemove(List<ServiceInstance> removed) throws Exception {
-			for (ServiceInstance instance : removed) {
-				try {
-					ZkContext.LOGGER.warn("[node removed]" + instance);
-					ZkContext.this.listener.delete(instance);
-				} catch (Exception e) {
-					ZkContext.LOGGER.error(e.getMessage(), e);
-				}
+		/**
+		 * 同步快照, 避免下一轮重复处理
+		 * 
+		 * @param install
+		 * @param update
+		 * @param remove
+		 */
+		private void snapshot(Map<String, ServiceInstance> install, Map<String, ServiceInstance[]> update, Map<String, ServiceInstance> remove) {
+			for (Map.Entry<String, ServiceInstance> each : install.entrySet()) {
+				ZkContext.this.snapshot.instance(each.getKey(), each.getValue());
 			}
-		}
-
-		private void handleUpdate(List<ServiceInstance[]> modified) throws Exception {
-			for (ServiceInstance[] instance : modified) {
-				try {
-					ZkContext.LOGGER.warn("[node update]" + instance[0]);
-					ServiceInstance instance_old = instance[0], instance_new = instance[1];
-					ZkContext.this.listener.change(instance_old, instance_new);
-				} catch (Exception e) {
-					ZkContext.LOGGER.error(e.getMessage(), e);
-				}
+			for (Map.Entry<String, ServiceInstance[]> each : update.entrySet()) {
+				ZkContext.this.snapshot.instance(each.getKey(), each.getValue()[1]);
+			}
+			for (String each : remove.keySet()) {
+				ZkContext.this.snapshot.instance(each);
 			}
 		}
 	}